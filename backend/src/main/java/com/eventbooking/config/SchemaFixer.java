@@ -1,5 +1,7 @@
 package com.eventbooking.config;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -8,39 +10,163 @@ import org.springframework.stereotype.Component;
 @Component
 public class SchemaFixer implements CommandLineRunner {
 
+    private static final Logger logger = LoggerFactory.getLogger(SchemaFixer.class);
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
     @Override
-    public void run(String... args) throws Exception {
-        System.out.println("Running manual schema fixes...");
+    public void run(String... args) {
+        logger.info("Running manual schema fixes");
+        int failed = 0;
+
+        // Event cancellation
+        failed += apply("event cancellation columns",
+                "ALTER TABLE events ADD COLUMN IF NOT EXISTS is_cancelled BOOLEAN DEFAULT FALSE NOT NULL",
+                "ALTER TABLE events ADD COLUMN IF NOT EXISTS cancellation_reason TEXT");
+
+        // Check-in columns on bookings; the device is the gate that recorded the entry (offline check-in sync)
+        failed += apply("booking check-in columns",
+                "ALTER TABLE bookings ADD COLUMN IF NOT EXISTS checked_in BOOLEAN DEFAULT FALSE NOT NULL",
+                "ALTER TABLE bookings ADD COLUMN IF NOT EXISTS checked_in_at TIMESTAMP",
+                "ALTER TABLE bookings ADD COLUMN IF NOT EXISTS checked_in_device VARCHAR(64)");
+
+        // Gate manifests: per-event deltas of bookings changed since a version
+        failed += apply("gate manifest deltas",
+                "ALTER TABLE bookings ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP",
+                "CREATE INDEX IF NOT EXISTS idx_bookings_category_updated " +
+                        "ON bookings(event_category_id, updated_at)");
+
+        // OTP attempt limits (database OTP store)
+        failed += apply("OTP attempt limits",
+                "ALTER TABLE email_otp ADD COLUMN IF NOT EXISTS attempts INT NOT NULL DEFAULT 0",
+                "CREATE INDEX IF NOT EXISTS idx_email_otp_lookup ON email_otp(email, purpose)");
+
+        // Event reminders: one per booking, looked up by event date
+        failed += apply("event reminders",
+                "ALTER TABLE bookings ADD COLUMN IF NOT EXISTS reminder_sent_at TIMESTAMP",
+                "CREATE INDEX IF NOT EXISTS idx_events_event_date ON events(event_date)");
+
+        // My bookings list: keyset pages on (booking_time, id) per user
+        failed += apply("my bookings keyset index",
+                "CREATE INDEX IF NOT EXISTS idx_bookings_user_time " +
+                        "ON bookings(user_id, booking_time DESC, id DESC)");
+
+        // Sales curves: per category minute/hour/day buckets, maintained on booking and cancellation
+        failed += apply("sales rollups",
+                "CREATE TABLE IF NOT EXISTS sales_rollups (" +
+                        "event_id UUID NOT NULL, " +
+                        "category_id UUID NOT NULL, " +
+                        "granularity VARCHAR(8) NOT NULL, " +
+                        "bucket_start TIMESTAMP NOT NULL, " +
+                        "bookings BIGINT NOT NULL DEFAULT 0, " +
+                        "seats BIGINT NOT NULL DEFAULT 0, " +
+                        "revenue NUMERIC(14, 2) NOT NULL DEFAULT 0, " +
+                        "cancellations BIGINT NOT NULL DEFAULT 0, " +
+                        "PRIMARY KEY (event_id, category_id, granularity, bucket_start))",
+                "CREATE INDEX IF NOT EXISTS idx_sales_rollups_age ON sales_rollups(granularity, bucket_start)");
+
+        // Persistence for bookings during payment, with the finalization state machine and a binary
+        // booking payload; legacy rows keep their JSON in booking_payload
+        failed += apply("pending payments",
+                "CREATE TABLE IF NOT EXISTS pending_payments (" +
+                        "reference_id VARCHAR(255) PRIMARY KEY, " +
+                        "booking_payload TEXT NOT NULL, " +
+                        "created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)",
+                "ALTER TABLE pending_payments ADD COLUMN IF NOT EXISTS status VARCHAR(20) NOT NULL DEFAULT 'PENDING'",
+                "ALTER TABLE pending_payments ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP",
+                "ALTER TABLE pending_payments ADD COLUMN IF NOT EXISTS booking_data BYTEA",
+                "ALTER TABLE pending_payments ALTER COLUMN booking_payload DROP NOT NULL",
+                "CREATE INDEX IF NOT EXISTS idx_pending_payments_status ON pending_payments(status, created_at)");
+
+        // Update seat_holds for payment tracking
+        failed += apply("seat hold payment tracking",
+                "ALTER TABLE seat_holds ADD COLUMN IF NOT EXISTS reference_id VARCHAR(255)",
+                "ALTER TABLE seat_holds ADD COLUMN IF NOT EXISTS status VARCHAR(50) DEFAULT 'HELD'");
+
+        // Durable inbox for wallet webhooks
+        failed += apply("webhook inbox",
+                "CREATE TABLE IF NOT EXISTS webhook_inbox (" +
+                        "id UUID PRIMARY KEY, " +
+                        "event_id VARCHAR(255) NOT NULL UNIQUE, " +
+                        "event_type VARCHAR(100), " +
+                        "reference_id VARCHAR(255), " +
+                        "payload TEXT NOT NULL, " +
+                        "status VARCHAR(20) NOT NULL DEFAULT 'RECEIVED', " +
+                        "attempts INT NOT NULL DEFAULT 0, " +
+                        "last_error TEXT, " +
+                        "received_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, " +
+                        "next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, " +
+                        "locked_at TIMESTAMP, " +
+                        "processed_at TIMESTAMP)",
+                "CREATE INDEX IF NOT EXISTS idx_webhook_inbox_due ON webhook_inbox(status, next_attempt_at)");
+
+        // Transactional outbox for booking side effects
+        failed += apply("outbox",
+                "CREATE TABLE IF NOT EXISTS outbox_events (" +
+                        "id UUID PRIMARY KEY, " +
+                        "event_type VARCHAR(50) NOT NULL, " +
+                        "aggregate_id VARCHAR(255) NOT NULL, " +
+                        "payload TEXT NOT NULL, " +
+                        "status VARCHAR(20) NOT NULL DEFAULT 'PENDING', " +
+                        "attempts INT NOT NULL DEFAULT 0, " +
+                        "last_error TEXT, " +
+                        "created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, " +
+                        "next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, " +
+                        "locked_at TIMESTAMP, " +
+                        "sent_at TIMESTAMP)",
+                "CREATE INDEX IF NOT EXISTS idx_outbox_events_due ON outbox_events(status, next_attempt_at)");
+
+        // Persistent email queue with priority lanes. OTP mail is sent from memory now; drop stored
+        // bodies that still contain codes
+        failed += apply("email queue",
+                "CREATE TABLE IF NOT EXISTS email_jobs (" +
+                        "id UUID PRIMARY KEY, " +
+                        "kind VARCHAR(20) NOT NULL, " +
+                        "recipient VARCHAR(255) NOT NULL, " +
+                        "subject VARCHAR(500) NOT NULL, " +
+                        "html_body TEXT NOT NULL, " +
+                        "status VARCHAR(20) NOT NULL DEFAULT 'PENDING', " +
+                        "attempts INT NOT NULL DEFAULT 0, " +
+                        "last_error TEXT, " +
+                        "created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, " +
+                        "next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, " +
+                        "locked_at TIMESTAMP, " +
+                        "sent_at TIMESTAMP)",
+                "CREATE INDEX IF NOT EXISTS idx_email_jobs_due ON email_jobs(status, next_attempt_at)",
+                "ALTER TABLE email_jobs ADD COLUMN IF NOT EXISTS qr_booking_id UUID",
+                "ALTER TABLE email_jobs ADD COLUMN IF NOT EXISTS priority VARCHAR(20) " +
+                        "NOT NULL DEFAULT 'TRANSACTIONAL'",
+                "UPDATE email_jobs SET priority = 'OTP' WHERE kind = 'OTP' AND status = 'PENDING'",
+                "UPDATE email_jobs SET priority = 'BULK' " +
+                        "WHERE kind = 'CANCELLATION' AND status = 'PENDING'",
+                "DROP INDEX IF EXISTS idx_email_jobs_due",
+                "CREATE INDEX IF NOT EXISTS idx_email_jobs_lane " +
+                        "ON email_jobs(status, priority, next_attempt_at)",
+                "DELETE FROM email_jobs WHERE kind = 'OTP'");
+
+        if (failed > 0) {
+            logger.error("Schema fixes finished with {} failed feature(s); see the errors above", failed);
+        } else {
+            logger.info("Schema fixes applied");
+        }
+    }
+
+    /**
+     * Runs one feature's statements in order. A failure skips the rest of that
+     * feature only; each statement commits on its own, so later features still
+     * apply. Returns 1 if the feature failed.
+     */
+    private int apply(String feature, String... statements) {
         try {
-            // Add is_cancelled column if it doesn't exist
-            jdbcTemplate
-                    .execute("ALTER TABLE events ADD COLUMN IF NOT EXISTS is_cancelled BOOLEAN DEFAULT FALSE NOT NULL");
-            System.out.println("Column 'is_cancelled' checked/added successfully.");
-
-            // Add cancellation_reason column if it doesn't exist
-            jdbcTemplate.execute("ALTER TABLE events ADD COLUMN IF NOT EXISTS cancellation_reason TEXT");
-            System.out.println("Column 'cancellation_reason' checked/added successfully.");
-
-            // FIX: Add check-in columns to bookings
-            jdbcTemplate
-                    .execute("ALTER TABLE bookings ADD COLUMN IF NOT EXISTS checked_in BOOLEAN DEFAULT FALSE NOT NULL");
-            jdbcTemplate.execute("ALTER TABLE bookings ADD COLUMN IF NOT EXISTS checked_in_at TIMESTAMP");
-            // Persistence for bookings during payment
-            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS pending_payments (" +
-                    "reference_id VARCHAR(255) PRIMARY KEY, " +
-                    "booking_payload TEXT NOT NULL, " +
-                    "created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)");
-
-            // Update seat_holds for payment tracking
-            jdbcTemplate.execute("ALTER TABLE seat_holds ADD COLUMN IF NOT EXISTS reference_id VARCHAR(255)");
-            jdbcTemplate.execute("ALTER TABLE seat_holds ADD COLUMN IF NOT EXISTS status VARCHAR(50) DEFAULT 'HELD'");
-
-            System.out.println("Payment persistence schema updates applied successfully.");
+            for (String statement : statements) {
+                jdbcTemplate.execute(statement);
+            }
+            logger.debug("Schema fixes for {} checked/applied", feature);
+            return 0;
         } catch (Exception e) {
-            System.err.println("Error running schema fixes: " + e.getMessage());
+            logger.error("Schema fixes for {} failed: {}", feature, e.getMessage(), e);
+            return 1;
         }
     }
 }
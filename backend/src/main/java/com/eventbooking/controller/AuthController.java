@@ -1,10 +1,13 @@
 package com.eventbooking.controller;
 
 import com.eventbooking.dto.Dtos;
+import com.eventbooking.exception.TooManyRequestsException;
 import com.eventbooking.model.User;
 
 import com.eventbooking.security.JwtUtil;
 import com.eventbooking.service.AuthService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
@@ -21,6 +24,8 @@ import java.util.Map;
 @RequestMapping("/api/auth")
 public class AuthController {
 
+        private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
+
         @Autowired
         private AuthService authService;
 
@@ -31,6 +36,8 @@ public class AuthController {
         public ResponseEntity<?> register(@RequestBody Dtos.RegisterRequest request) {
                 try {
                         return ResponseEntity.ok(authService.register(request));
+                } catch (TooManyRequestsException e) {
+                        throw e; // 429 with Retry-After from GlobalExceptionHandler
                 } catch (RuntimeException e) {
                         return ResponseEntity.status(400).body(java.util.Map.of("message", e.getMessage()));
                 }
@@ -45,6 +52,8 @@ public class AuthController {
                 try {
                         otpService.generateOtp(request.getEmail().trim());
                         return ResponseEntity.ok("OTP sent to your email");
+                } catch (TooManyRequestsException e) {
+                        throw e; // 429 with Retry-After from GlobalExceptionHandler
                 } catch (RuntimeException e) {
                         return ResponseEntity.badRequest().body(e.getMessage());
                 }
@@ -59,6 +68,8 @@ public class AuthController {
                         } else {
                                 return ResponseEntity.badRequest().body("Invalid or expired OTP");
                         }
+                } catch (TooManyRequestsException e) {
+                        throw e; // 429 with Retry-After from GlobalExceptionHandler
                 } catch (RuntimeException e) {
                         return ResponseEntity.badRequest().body(e.getMessage());
                 }
@@ -75,6 +86,8 @@ public class AuthController {
                         } else {
                                 return ResponseEntity.badRequest().body("Invalid or expired OTP");
                         }
+                } catch (TooManyRequestsException e) {
+                        throw e; // 429 with Retry-After from GlobalExceptionHandler
                 } catch (RuntimeException e) {
                         return ResponseEntity.badRequest().body(e.getMessage());
                 }
@@ -86,6 +99,8 @@ public class AuthController {
                 try {
                         otpService.resetPassword(request.getEmail(), request.getNewPassword());
                         return ResponseEntity.ok("Password reset successfully");
+                } catch (TooManyRequestsException e) {
+                        throw e;
                 } catch (RuntimeException e) {
                         return ResponseEntity.badRequest().body(e.getMessage());
                 }
@@ -93,14 +108,9 @@ public class AuthController {
 
         @PostMapping("/login")
         public ResponseEntity<?> login(@RequestBody Dtos.LoginRequest request) {
-                System.out.println("--------------------------------------------------");
-                System.out.println("LOGIN ATTMEPT: " + request.getEmail());
-                System.out.println("--------------------------------------------------");
-
                 try {
                         // Use AuthService directly
                         User user = authService.login(request);
-                        System.out.println("AuthService returned user: " + user.getEmail());
 
                         // Construct UserDetails
                         UserDetails userDetails = new org.springframework.security.core.userdetails.User(
@@ -111,12 +121,13 @@ public class AuthController {
                                                                         "ROLE_" + user.getRole())));
 
                         String jwt = jwtUtil.generateToken(userDetails, user.getRole(), user.getId());
-                        System.out.println("JWT Generated successfully");
 
                         return ResponseEntity.ok(new Dtos.LoginResponse(jwt, user.getId(), user.getName(),
                                         user.getEmail(), user.getRole()));
+                } catch (TooManyRequestsException e) {
+                        throw e; // 429 with Retry-After from GlobalExceptionHandler
                 } catch (Exception e) {
-                        System.out.println("LOGIN FAILED EXCEPTION: " + e.getMessage());
+                        logger.info("Login failed for {}: {}", request.getEmail(), e.getMessage());
                         String msg = e.getMessage();
                         if (msg != null && msg.contains("Invalid credentials")) {
                                 return ResponseEntity.status(401).body(java.util.Map.of("message", msg));
@@ -178,8 +189,10 @@ public class AuthController {
                                         .ok(new Dtos.LoginResponse(jwt, user.getId(), user.getName(), user.getEmail(),
                                                         user.getRole()));
 
+                } catch (TooManyRequestsException e) {
+                        throw e;
                 } catch (Exception e) {
-                        e.printStackTrace();
+                        logger.warn("Google login failed: {}", e.getMessage());
                         return ResponseEntity.badRequest().build();
                 }
         }
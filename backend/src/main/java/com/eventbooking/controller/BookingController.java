@@ -1,21 +1,36 @@
 package com.eventbooking.controller;
 
+import com.eventbooking.dto.AdminBookingRow;
 import com.eventbooking.dto.Dtos;
 import com.eventbooking.model.Booking;
+import com.eventbooking.security.JwtUserPrincipal;
+import com.eventbooking.service.BookingExportService;
 import com.eventbooking.service.BookingService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/bookings")
 public class BookingController {
 
+    private static final Logger logger = LoggerFactory.getLogger(BookingController.class);
+
     @Autowired
     private BookingService bookingService;
 
+    @Autowired
+    private BookingExportService bookingExportService;
+
     @Autowired
     private com.eventbooking.repository.UserRepository userRepository;
 
@@ -26,39 +41,80 @@ public class BookingController {
 
     @GetMapping("/my")
     public ResponseEntity<List<Booking>> getMyBookings() {
-        System.out.println("[BOOKING /my] Endpoint called");
-
         try {
             org.springframework.security.core.Authentication authentication = org.springframework.security.core.context.SecurityContextHolder
                     .getContext().getAuthentication();
             if (authentication == null || !authentication.isAuthenticated()) {
-                System.out.println("[BOOKING /my] ERROR: Not authenticated");
                 return ResponseEntity.status(org.springframework.http.HttpStatus.UNAUTHORIZED).build();
             }
 
             String email = authentication.getName();
-            System.out.println("[BOOKING /my] User email from context: " + email);
+            UUID userId = currentUserId(authentication);
 
-            com.eventbooking.model.User user = userRepository.findByEmail(email)
-                    .orElseThrow(() -> new RuntimeException("User not found: " + email));
-
-            List<Booking> bookings = bookingService.getUserBookings(Objects.requireNonNull(user.getId()));
-            System.out.println("[BOOKING /my] Returning " + bookings.size() + " bookings");
+            List<Booking> bookings = bookingService.getUserBookings(Objects.requireNonNull(userId));
+            logger.debug("Returning {} bookings for {}", bookings.size(), email);
 
             return ResponseEntity.ok(bookings);
         } catch (Exception e) {
-            System.out.println("[BOOKING /my] CRITICAL ERROR: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Failed to load bookings for the current user", e);
             return ResponseEntity.status(org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR)
                     .header("X-Error-Reason", e.getMessage())
                     .build();
         }
     }
 
+    // Admin only (SecurityConfig); one page of flat rows rather than every booking with its entity graph
     @GetMapping
-    public ResponseEntity<List<Booking>> getAllBookings() {
-        // Admin only in real app
-        return ResponseEntity.ok(bookingService.getAllBookings());
+    public ResponseEntity<Page<AdminBookingRow>> getAllBookings(@RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size, @RequestParam(required = false) String status,
+            @RequestParam(required = false) UUID eventId) {
+        return ResponseEntity.ok(bookingService.getAllBookings(status, eventId, page, size));
+    }
+
+    // Admin only (SecurityConfig); streamed from a database cursor, so any number of bookings fits
+    @GetMapping("/export")
+    public void exportBookings(@RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) String status, @RequestParam(required = false) UUID eventId,
+            HttpServletResponse response) throws IOException {
+        boolean ndjson = BookingExportService.FORMAT_NDJSON.equalsIgnoreCase(format);
+        bookingExportService.reserveSlot();
+        response.setContentType(ndjson ? "application/x-ndjson" : "text/csv");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Content-Disposition",
+                "attachment; filename=\"bookings." + (ndjson ? "ndjson" : "csv") + "\"");
+        bookingExportService.export(ndjson ? BookingExportService.FORMAT_NDJSON : BookingExportService.FORMAT_CSV,
+                status, eventId, response.getOutputStream());
+    }
+
+    /**
+     * Lightweight "my bookings" list: flat rows (booking, category, event) read
+     * in one statement, newest first, {@code limit} at a time. Pass the
+     * returned {@code nextCursor} as {@code cursor} for the next page.
+     */
+    @GetMapping("/my/summary")
+    public ResponseEntity<?> getMyBookingSummaries(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        org.springframework.security.core.Authentication authentication = org.springframework.security.core.context.SecurityContextHolder
+                .getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(org.springframework.http.HttpStatus.UNAUTHORIZED).build();
+        }
+        try {
+            return ResponseEntity.ok(bookingService.getUserBookingSummaries(currentUserId(authentication), cursor,
+                    limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(java.util.Map.of("message", e.getMessage()));
+        }
+    }
+
+    // The stateless principal already carries the id; only the database-backed one needs a lookup
+    private UUID currentUserId(org.springframework.security.core.Authentication authentication) {
+        if (authentication.getPrincipal() instanceof JwtUserPrincipal principal) {
+            return principal.getUserId();
+        }
+        String email = authentication.getName();
+        return userRepository.findByEmail(email)
+                .orElseThrow(() -> new RuntimeException("User not found: " + email)).getId();
     }
 
     @GetMapping("/stats")
@@ -66,6 +122,11 @@ public class BookingController {
         return ResponseEntity.ok(bookingService.getDashboardStats());
     }
 
+    @GetMapping("/stats/events/{eventId}")
+    public ResponseEntity<Dtos.EventStats> getEventStats(@PathVariable UUID eventId) {
+        return ResponseEntity.ok(bookingService.getEventStats(eventId));
+    }
+
     @GetMapping("/ping")
     public ResponseEntity<String> ping() {
         // execute simple query to keep DB awake
@@ -75,13 +136,62 @@ public class BookingController {
 
     @PostMapping("/{id}/email-ticket")
     public ResponseEntity<Void> emailTicket(@PathVariable java.util.UUID id) {
-        System.out.println("[BOOKING] Email ticket request for: " + id);
+        logger.info("Ticket email requested for booking {}", id);
         bookingService.emailTicket(id);
         return ResponseEntity.ok().build();
     }
 
+    /**
+     * Ticket QR as PNG for the booking's owner (or an admin), encoding the
+     * signed ticket token. The token changes only when the event is
+     * rescheduled or the signing key rotates, so clients revalidate daily
+     * against an ETag derived from it.
+     */
+    @GetMapping(value = "/{id}/qr", produces = org.springframework.http.MediaType.IMAGE_PNG_VALUE)
+    public ResponseEntity<byte[]> getTicketQr(@PathVariable java.util.UUID id,
+            org.springframework.web.context.request.WebRequest webRequest) {
+        String token = ticketTokenForCaller(id).orElse(null);
+        if (token == null) {
+            return ResponseEntity.notFound().build();
+        }
+        String etag = "\"" + bookingService.ticketTokenDigest(token) + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return null; // 304 already committed by checkNotModified
+        }
+        return ResponseEntity.ok()
+                .cacheControl(org.springframework.http.CacheControl
+                        .maxAge(1, java.util.concurrent.TimeUnit.DAYS).cachePrivate())
+                .eTag(etag)
+                .body(bookingService.getTicketQr(token));
+    }
+
+    /** Signed ticket token for the booking's owner (or an admin), for wallets and offline gates. */
+    @GetMapping("/{id}/ticket")
+    public ResponseEntity<Map<String, Object>> getTicketToken(@PathVariable UUID id) {
+        return ticketTokenForCaller(id)
+                .map(token -> ResponseEntity.ok(Map.<String, Object>of("bookingId", id, "token", token)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // A ticket token is all a gate needs to admit someone: only its owner and admins may see it
+    private java.util.Optional<String> ticketTokenForCaller(UUID bookingId) {
+        org.springframework.security.core.Authentication authentication = org.springframework.security.core.context.SecurityContextHolder
+                .getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return java.util.Optional.empty();
+        }
+        boolean admin = authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+        return bookingService.getTicketFacts(bookingId)
+                .filter(facts -> admin || facts.getUserId().equals(currentUserId(authentication)))
+                .map(bookingService::issueTicketToken);
+    }
+
     @PostMapping("/scan")
     public ResponseEntity<Dtos.ScanResponse> scanTicket(@RequestBody Dtos.ScanRequest request) {
+        if (request.getToken() != null && !request.getToken().isBlank()) {
+            return ResponseEntity.ok(bookingService.scanTicketToken(request.getToken().trim()));
+        }
         return ResponseEntity.ok(bookingService.scanTicket(request.getBookingId()));
     }
 
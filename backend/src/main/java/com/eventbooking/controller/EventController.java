@@ -3,6 +3,8 @@ package com.eventbooking.controller;
 import com.eventbooking.dto.Dtos;
 import com.eventbooking.model.Event;
 import com.eventbooking.service.EventService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -14,6 +16,8 @@ import java.util.Objects;
 @RequestMapping("/api/events")
 public class EventController {
 
+    private static final Logger logger = LoggerFactory.getLogger(EventController.class);
+
     @Autowired
     private EventService eventService;
 
@@ -37,7 +41,7 @@ public class EventController {
 
     @PostMapping
     public ResponseEntity<Event> createEvent(@RequestBody Dtos.EventRequest request) {
-        System.out.println("Received Create Event Request: " + request.getName());
+        logger.info("Creating event {}", request.getName());
         return ResponseEntity.ok(eventService.createEvent(request));
     }
 
@@ -5,6 +5,7 @@ import com.eventbooking.service.PaymentService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.Map;
@@ -121,8 +122,17 @@ public class PaymentController {
         String referenceId = payload.get("referenceId");
 
         try {
-            if (paymentService.processSuccessfulPayment(referenceId)) {
+            PaymentService.FinalizeResult result = paymentService.finalizePayment(referenceId);
+            if (result == PaymentService.FinalizeResult.BOOKED) {
                 return ResponseEntity.ok(Collections.singletonMap("success", true));
+            } else if (result == PaymentService.FinalizeResult.PROCESSING
+                    || result == PaymentService.FinalizeResult.UNKNOWN) {
+                // Another finalizer holds the reference, or the wallet could not be asked right now:
+                // poll again or wait for the payment update
+                return ResponseEntity.accepted().body(Map.of("success", false, "status", "PROCESSING"));
+            } else if (result == PaymentService.FinalizeResult.REFUND_DUE) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body("Payment received but the seats are no longer available; it will be refunded.");
             } else {
                 return ResponseEntity.badRequest().body("Payment verification failed or no pending bookings found.");
             }
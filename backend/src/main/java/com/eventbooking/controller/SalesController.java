@@ -0,0 +1,52 @@
+package com.eventbooking.controller;
+
+import com.eventbooking.dto.SalesPoint;
+import com.eventbooking.service.SalesRollupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Sales curves for organizers, answered from the sales rollups (admin only,
+ * under /api/admin).
+ */
+@RestController
+@RequestMapping("/api/admin/sales")
+public class SalesController {
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @GetMapping("/events/{eventId}")
+    public ResponseEntity<?> getSalesSeries(@PathVariable UUID eventId,
+            @RequestParam(defaultValue = "hour") String granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) UUID categoryId) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : switch (granularity.toLowerCase()) {
+            case "minute" -> end.minusDays(1);
+            case "day" -> end.minusDays(365);
+            default -> end.minusDays(7);
+        };
+        try {
+            List<SalesPoint> points = salesRollupService.series(eventId, categoryId, granularity, start, end);
+            return ResponseEntity.ok(points);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    /** Recomputes an event's rollups from its bookings, e.g. for events booked before rollups existed. */
+    @PostMapping("/events/{eventId}/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuild(@PathVariable UUID eventId) {
+        salesRollupService.rebuild(eventId);
+        return ResponseEntity.ok(Map.of("success", true, "eventId", eventId));
+    }
+}
@@ -0,0 +1,81 @@
+package com.eventbooking.controller;
+
+import com.eventbooking.dto.Dtos;
+import com.eventbooking.repository.EventRepository;
+import com.eventbooking.service.GateCheckInService;
+import com.eventbooking.service.GateManifestService;
+import com.eventbooking.service.TicketTokenService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Endpoints for gate devices: the public keys that verify ticket tokens
+ * offline (public), per-event attendee manifests to preload, and the batch
+ * upload of offline check-ins (admin only).
+ */
+@RestController
+@RequestMapping("/api/tickets")
+public class TicketController {
+
+    @Autowired
+    private TicketTokenService ticketTokenService;
+
+    @Autowired
+    private GateCheckInService gateCheckInService;
+
+    @Autowired
+    private GateManifestService gateManifestService;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @GetMapping("/keys")
+    public ResponseEntity<List<TicketTokenService.VerificationKey>> getVerificationKeys() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(1, TimeUnit.HOURS).cachePublic())
+                .body(ticketTokenService.verificationKeys());
+    }
+
+    @PostMapping("/check-ins")
+    public ResponseEntity<?> syncCheckIns(@RequestBody Dtos.GateCheckInSync request) {
+        try {
+            List<Dtos.GateScanResult> results = gateCheckInService.sync(request);
+            return ResponseEntity.ok(Map.of("deviceId", request.getDeviceId(), "results", results));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    /**
+     * Binary attendee manifest of an event (layout on {@link GateManifestService}).
+     * Pass the {@code X-Manifest-Version} of the manifest a device holds as
+     * {@code since} to get only the bookings changed after it.
+     */
+    @GetMapping("/events/{eventId}/manifest")
+    public void getManifest(@PathVariable UUID eventId, @RequestParam(required = false) Long since,
+            HttpServletResponse response) throws IOException {
+        if (!eventRepository.existsById(eventId)) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"message\":\"Event not found\"}");
+            return;
+        }
+        gateManifestService.reserveSlot();
+        long version = gateManifestService.newVersion();
+        response.setContentType("application/octet-stream");
+        response.setHeader("X-Manifest-Version", Long.toString(version));
+        response.setHeader("Content-Disposition", "attachment; filename=\"manifest-" + eventId + "-" + version
+                + (since != null ? ".delta" : "") + ".bin\"");
+        gateManifestService.write(eventId, since, version, response.getOutputStream());
+    }
+}
@@ -1,10 +1,11 @@
 package com.eventbooking.controller;
 
-import com.eventbooking.dto.Dtos;
-// import com.eventbooking.service.BookingService;
-import com.eventbooking.service.SocketIOService;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.eventbooking.service.WebhookInboxService;
+import com.eventbooking.util.SampledLogger;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
@@ -20,58 +21,55 @@ import java.util.Formatter;
 @RequestMapping("/api/payments")
 public class WebhookController {
 
-    @Value("${wallet.webhook.secret:placeholder}")
-    private String webhookSecret;
+    private static final Logger logger = LoggerFactory.getLogger(WebhookController.class);
+    private static final SampledLogger receivedLog = new SampledLogger(logger, "webhook.received", 10, 50);
+    private static final SampledLogger rejectedLog = new SampledLogger(logger, "webhook.bad-signature", 1, 10);
 
-    @Autowired
-    private com.eventbooking.service.PaymentService paymentService;
+    @Value("${wallet.webhook.secret:}")
+    private String webhookSecret;
 
     @Autowired
-    private SocketIOService socketIOService;
+    private WebhookInboxService webhookInboxService;
+
+    /**
+     * The endpoint is open to anonymous callers and trusts the signature
+     * alone, so a missing or well-known secret would let anyone book seats.
+     * The simulator profile sets its own secret.
+     */
+    @PostConstruct
+    public void checkSecret() {
+        if (webhookSecret.isBlank() || "placeholder".equals(webhookSecret)) {
+            throw new IllegalStateException("wallet.webhook.secret is not set; set WALLET_WEBHOOK_SECRET to the "
+                    + "secret the wallet gateway signs webhooks with");
+        }
+    }
 
+    /**
+     * Verifies the signature and stores the delivery in the durable inbox,
+     * then acknowledges at once. Booking and the STOMP update happen on the
+     * inbox workers, so slow processing no longer triggers gateway retries.
+     */
     @PostMapping("/webhook-callback")
     public ResponseEntity<String> handleWebhook(
             @RequestHeader("X-Signature") String signature,
             @RequestBody String payload) {
 
-        System.out.println("Received Webhook: " + payload);
+        receivedLog.info("Received webhook ({} bytes)", payload.length());
 
         // 1. Verify Signature
         if (!verifySignature(payload, signature, webhookSecret)) {
-            System.err.println("Webhook Signature Verification Failed!");
+            rejectedLog.warn("Webhook signature verification failed");
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid Signature");
         }
 
+        // 2. Persist to inbox (deduplicated by event id) and acknowledge
         try {
-            // 2. Parse Payload
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode root = mapper.readTree(payload);
-            String event = root.path("event").asText();
-            String reference = root.path("reference").asText();
-            String status = root.path("status").asText();
-
-            // 3. Handle Event
-            if ("payment.success".equals(event) && "SUCCESS".equals(status)) {
-                System.out.println("Processing Successful Payment for Reference: " + reference);
-
-                // Process booking synchronously here for reliability
-                boolean success = paymentService.processSuccessfulPayment(reference);
-
-                Dtos.WalletTransferResponse response = new Dtos.WalletTransferResponse();
-                response.setStatus(success ? "SUCCESS" : "FAILED");
-                response.setReference(reference);
-                response.setAmount(root.path("amount").asDouble());
-                if (!success) {
-                    response.setReason("Internal Booking Error or already processed");
-                }
-
-                socketIOService.sendPaymentUpdate(reference, response);
-            }
-
-            return ResponseEntity.ok("OK");
-
+            boolean accepted = webhookInboxService.accept(payload);
+            return ResponseEntity.ok(accepted ? "OK" : "DUPLICATE");
+        } catch (JsonProcessingException e) {
+            return ResponseEntity.badRequest().body("Malformed Payload");
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Failed to store webhook in the inbox", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Processing Error");
         }
     }
@@ -87,7 +85,7 @@ public class WebhookController {
             // Constant time comparison roughly
             return calculatedSignature.equals(signature);
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Webhook signature check failed", e);
             return false;
         }
     }
@@ -0,0 +1,39 @@
+package com.eventbooking.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/** Flat booking row for the admin bookings list: the columns an admin sees, without the entity graph. */
+public interface AdminBookingRow {
+
+    UUID getId();
+
+    LocalDateTime getBookingTime();
+
+    String getStatus();
+
+    int getSeatsBooked();
+
+    String getSeatIdentifiers();
+
+    String getPaymentId();
+
+    boolean isCheckedIn();
+
+    LocalDateTime getCheckedInAt();
+
+    UUID getUserId();
+
+    String getUserEmail();
+
+    String getUserName();
+
+    UUID getEventId();
+
+    String getEventName();
+
+    String getCategoryName();
+
+    BigDecimal getPrice();
+}
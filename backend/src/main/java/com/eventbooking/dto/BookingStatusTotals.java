@@ -0,0 +1,13 @@
+package com.eventbooking.dto;
+
+import java.math.BigDecimal;
+
+/** One row per booking status for a user's dashboard: how many bookings and what their seats cost. */
+public interface BookingStatusTotals {
+
+    String getStatus();
+
+    long getBookings();
+
+    BigDecimal getSeatTotal();
+}
@@ -0,0 +1,15 @@
+package com.eventbooking.dto;
+
+import java.time.LocalDateTime;
+
+/** Check-in columns of one booking, used to explain why a synced scan did not win. */
+public interface CheckInState {
+
+    String getStatus();
+
+    boolean isCheckedIn();
+
+    LocalDateTime getCheckedInAt();
+
+    String getCheckedInDevice();
+}
@@ -68,11 +68,50 @@ public class Dtos {
         private long totalEvents;
         private long totalBookings;
         private long totalSeatsSold;
+        private long cancelledBookings;
+        private java.math.BigDecimal totalRevenue;
+        private long totalCheckIns;
 
-        public DashboardStats(long totalEvents, long totalBookings, long totalSeatsSold) {
+        public DashboardStats(long totalEvents, long totalBookings, long totalSeatsSold, long cancelledBookings,
+                java.math.BigDecimal totalRevenue, long totalCheckIns) {
             this.totalEvents = totalEvents;
             this.totalBookings = totalBookings;
             this.totalSeatsSold = totalSeatsSold;
+            this.cancelledBookings = cancelledBookings;
+            this.totalRevenue = totalRevenue;
+            this.totalCheckIns = totalCheckIns;
+        }
+    }
+
+    @Data
+    public static class EventStats {
+        private UUID eventId;
+        private long totalBookings;
+        private long totalSeatsSold;
+        private long cancelledBookings;
+        private java.math.BigDecimal totalRevenue;
+        private long totalCheckIns;
+
+        public EventStats(UUID eventId, long totalBookings, long totalSeatsSold, long cancelledBookings,
+                java.math.BigDecimal totalRevenue, long totalCheckIns) {
+            this.eventId = eventId;
+            this.totalBookings = totalBookings;
+            this.totalSeatsSold = totalSeatsSold;
+            this.cancelledBookings = cancelledBookings;
+            this.totalRevenue = totalRevenue;
+            this.totalCheckIns = totalCheckIns;
+        }
+    }
+
+    /** One page of a keyset-paged list; pass nextCursor back to get the following page (null at the end). */
+    @Data
+    public static class CursorPage<T> {
+        private java.util.List<T> items;
+        private String nextCursor;
+
+        public CursorPage(java.util.List<T> items, String nextCursor) {
+            this.items = items;
+            this.nextCursor = nextCursor;
         }
     }
 
@@ -101,6 +140,41 @@ public class Dtos {
     @Data
     public static class ScanRequest {
         private UUID bookingId;
+        private String token; // signed ticket token (ET1.…); takes precedence over bookingId
+    }
+
+    /** Entry scans a gate recorded offline, uploaded in one batch. */
+    @Data
+    public static class GateCheckInSync {
+        private String deviceId;
+        private java.util.List<GateScan> scans;
+    }
+
+    @Data
+    public static class GateScan {
+        private String token;
+        private java.time.LocalDateTime scannedAt;
+    }
+
+    /**
+     * Outcome of one synced scan. ACCEPTED: this scan is the booking's
+     * recorded entry; DUPLICATE: an earlier scan (checkedInAt, checkedInDevice)
+     * won; CANCELLED, EXPIRED or INVALID: the ticket should not have been admitted.
+     */
+    @Data
+    public static class GateScanResult {
+        private UUID bookingId;
+        private String status;
+        private java.time.LocalDateTime checkedInAt;
+        private String checkedInDevice;
+
+        public GateScanResult(UUID bookingId, String status, java.time.LocalDateTime checkedInAt,
+                String checkedInDevice) {
+            this.bookingId = bookingId;
+            this.status = status;
+            this.checkedInAt = checkedInAt;
+            this.checkedInDevice = checkedInDevice;
+        }
     }
 
     @Data
@@ -0,0 +1,19 @@
+package com.eventbooking.dto;
+
+import java.math.BigDecimal;
+
+/** SQL aggregate of one event's bookings, used to reconcile the in-memory booking counters. */
+public interface EventBookingTotals {
+
+    java.util.UUID getEventId();
+
+    long getBookings();
+
+    long getSeats();
+
+    long getCancelled();
+
+    BigDecimal getConfirmedRevenue();
+
+    long getCheckIns();
+}
@@ -0,0 +1,39 @@
+package com.eventbooking.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/** One row of a user's booking list, read in a single statement with its category and event columns. */
+public interface MyBookingRow {
+
+    UUID getId();
+
+    LocalDateTime getBookingTime();
+
+    String getStatus();
+
+    int getSeatsBooked();
+
+    String getSeatIdentifiers();
+
+    boolean isCheckedIn();
+
+    LocalDateTime getCheckedInAt();
+
+    String getCategoryName();
+
+    BigDecimal getPrice();
+
+    UUID getEventId();
+
+    String getEventName();
+
+    LocalDateTime getEventDate();
+
+    String getImageUrl();
+
+    String getLocationName();
+
+    boolean isEventCancelled();
+}
@@ -0,0 +1,19 @@
+package com.eventbooking.dto;
+
+import java.util.UUID;
+
+/** Flat row read by the event reminder scheduler: just what the reminder email needs. */
+public interface ReminderRecipient {
+
+    UUID getBookingId();
+
+    String getEmail();
+
+    String getName();
+
+    String getCategoryName();
+
+    int getSeatsBooked();
+
+    String getSeatIdentifiers();
+}
@@ -0,0 +1,18 @@
+package com.eventbooking.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/** One point of an event's sales curve, summed over the requested categories. */
+public interface SalesPoint {
+
+    LocalDateTime getBucketStart();
+
+    long getBookings();
+
+    long getSeats();
+
+    BigDecimal getRevenue();
+
+    long getCancellations();
+}
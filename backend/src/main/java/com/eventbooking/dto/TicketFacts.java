@@ -0,0 +1,20 @@
+package com.eventbooking.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/** What a signed ticket token states about a booking, read without loading the booking graph. */
+public interface TicketFacts {
+
+    UUID getBookingId();
+
+    UUID getEventId();
+
+    UUID getCategoryId();
+
+    int getSeatsBooked();
+
+    LocalDateTime getEventDate();
+
+    UUID getUserId();
+}
@@ -0,0 +1,19 @@
+package com.eventbooking.exception;
+
+/**
+ * Thrown when a caller exceeds a throttle; mapped to HTTP 429 with a
+ * Retry-After header.
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
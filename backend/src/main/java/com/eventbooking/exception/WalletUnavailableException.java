@@ -0,0 +1,12 @@
+package com.eventbooking.exception;
+
+/**
+ * Thrown when a wallet-service call is rejected without being attempted,
+ * either because the circuit breaker is open or the bulkhead is full.
+ */
+public class WalletUnavailableException extends RuntimeException {
+
+    public WalletUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -48,11 +48,28 @@ public class Booking {
     @Column(name = "checked_in_at")
     private LocalDateTime checkedInAt;
 
+    // Gate that recorded the (earliest) entry scan
+    @Column(name = "checked_in_device", length = 64)
+    private String checkedInDevice;
+
+    @Column(name = "reminder_sent_at")
+    private LocalDateTime reminderSentAt;
+
     @Column(name = "booking_time", updatable = false)
     private LocalDateTime bookingTime;
 
+    // Last change of status or check-in state; gate manifest deltas are selected by it
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
     @PrePersist
     protected void onCreate() {
         bookingTime = LocalDateTime.now();
+        updatedAt = bookingTime;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
     }
 }
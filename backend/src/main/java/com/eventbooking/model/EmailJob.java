@@ -0,0 +1,86 @@
+package com.eventbooking.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A fully rendered email waiting to be handed to SMTP by {@code EmailDispatcher}.
+ * Callers render and enqueue; delivery, retries and dead-lettering happen off
+ * the request thread.
+ */
+@Entity
+@Table(name = "email_jobs")
+@Data
+@NoArgsConstructor
+public class EmailJob {
+
+    public static final String KIND_OTP = "OTP";
+    public static final String KIND_TICKET = "TICKET";
+    public static final String KIND_CANCELLATION = "CANCELLATION";
+    public static final String KIND_REMINDER = "REMINDER";
+
+    // Delivery classes, each with its own rate limit: OTP mails have a dedicated
+    // sender; TRANSACTIONAL and BULK share the worker pool by weight
+    public static final String PRIORITY_OTP = "OTP";
+    public static final String PRIORITY_TRANSACTIONAL = "TRANSACTIONAL";
+    public static final String PRIORITY_BULK = "BULK";
+
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_SENDING = "SENDING";
+    public static final String STATUS_SENT = "SENT";
+    public static final String STATUS_DEAD = "DEAD";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID id;
+
+    @Column(name = "kind", nullable = false)
+    private String kind;
+
+    @Column(name = "priority", nullable = false)
+    private String priority = PRIORITY_TRANSACTIONAL;
+
+    @Column(name = "recipient", nullable = false)
+    private String recipient;
+
+    @Column(name = "subject", nullable = false, length = 500)
+    private String subject;
+
+    @Column(name = "html_body", columnDefinition = "TEXT", nullable = false)
+    private String htmlBody;
+
+    @Column(name = "qr_booking_id")
+    private UUID qrBookingId; // Attach this booking's ticket QR inline as cid:ticket-qr
+
+    @Column(name = "status", nullable = false)
+    private String status = STATUS_PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts = 0;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "locked_at")
+    private LocalDateTime lockedAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    public static String priorityOf(String kind) {
+        return switch (kind) {
+            case KIND_OTP -> PRIORITY_OTP;
+            case KIND_TICKET -> PRIORITY_TRANSACTIONAL;
+            default -> PRIORITY_BULK;
+        };
+    }
+}
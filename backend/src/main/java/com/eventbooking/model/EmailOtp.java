@@ -30,6 +30,9 @@ public class EmailOtp {
     @Column(nullable = false)
     private String purpose; // SIGNUP, RESET
 
+    @Column(nullable = false)
+    private int attempts = 0;
+
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
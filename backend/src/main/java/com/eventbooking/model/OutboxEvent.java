@@ -0,0 +1,61 @@
+package com.eventbooking.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Side effect (STOMP update, email) recorded in the same transaction as the
+ * booking change that caused it, and dispatched afterwards by {@code OutboxRelay}.
+ */
+@Entity
+@Table(name = "outbox_events")
+@Data
+@NoArgsConstructor
+public class OutboxEvent {
+
+    public static final String TYPE_PAYMENT_UPDATE = "PAYMENT_UPDATE";
+    public static final String TYPE_TICKET_EMAIL = "TICKET_EMAIL";
+    public static final String TYPE_CANCELLATION_EMAIL = "CANCELLATION_EMAIL";
+
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_SENDING = "SENDING";
+    public static final String STATUS_SENT = "SENT";
+    public static final String STATUS_DEAD = "DEAD";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID id;
+
+    @Column(name = "event_type", nullable = false)
+    private String eventType;
+
+    @Column(name = "aggregate_id", nullable = false)
+    private String aggregateId; // Payment reference or booking id
+
+    @Column(name = "payload", columnDefinition = "TEXT", nullable = false)
+    private String payload; // JSON
+
+    @Column(name = "status", nullable = false)
+    private String status = STATUS_PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts = 0;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "locked_at")
+    private LocalDateTime lockedAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+}
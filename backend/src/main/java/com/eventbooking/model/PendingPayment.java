@@ -10,19 +10,42 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 public class PendingPayment {
+
+    // Finalization state machine:
+    // PENDING -> VERIFYING -> VERIFIED -> BOOKED
+    // VERIFYING -> PENDING (wallet has not received the money yet)
+    // VERIFIED -> FAILED (paid, but the seats could not be booked)
+    // PENDING -> EXPIRED (never paid; released by the reconciler)
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_VERIFYING = "VERIFYING";
+    public static final String STATUS_VERIFIED = "VERIFIED";
+    public static final String STATUS_BOOKED = "BOOKED";
+    public static final String STATUS_FAILED = "FAILED";
+    public static final String STATUS_EXPIRED = "EXPIRED";
+
     @Id
     @Column(name = "reference_id")
     private String referenceId;
 
     @Column(name = "booking_payload", columnDefinition = "TEXT")
-    private String bookingPayload; // JSON string of List<BookingRequest>
+    private String bookingPayload; // Legacy JSON of List<BookingRequest>; new rows use bookingData
+
+    @Column(name = "booking_data")
+    private byte[] bookingData; // PendingBookingCodec encoding of List<BookingRequest>
+
+    @Column(name = "status", nullable = false)
+    private String status = STATUS_PENDING;
 
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
-    public PendingPayment(String referenceId, String bookingPayload) {
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public PendingPayment(String referenceId, byte[] bookingData) {
         this.referenceId = referenceId;
-        this.bookingPayload = bookingPayload;
+        this.bookingData = bookingData;
         this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
     }
 }
@@ -0,0 +1,65 @@
+package com.eventbooking.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Sales of one event category within one time bucket, kept at minute, hour
+ * and day granularity by {@code SalesRollupService}. Bookings count in the
+ * bucket of their booking time; a cancellation takes its seats and revenue
+ * back out of that same bucket, so each bucket holds net sales.
+ */
+@Entity
+@Table(name = "sales_rollups", indexes = {
+        @Index(name = "idx_sales_rollups_age", columnList = "granularity, bucket_start") })
+@IdClass(SalesRollup.Key.class)
+@Data
+@NoArgsConstructor
+public class SalesRollup {
+
+    public static final String GRANULARITY_MINUTE = "MINUTE";
+    public static final String GRANULARITY_HOUR = "HOUR";
+    public static final String GRANULARITY_DAY = "DAY";
+
+    @Data
+    @NoArgsConstructor
+    public static class Key implements Serializable {
+        private UUID eventId;
+        private UUID categoryId;
+        private String granularity;
+        private LocalDateTime bucketStart;
+    }
+
+    @Id
+    @Column(name = "event_id", nullable = false)
+    private UUID eventId;
+
+    @Id
+    @Column(name = "category_id", nullable = false)
+    private UUID categoryId;
+
+    @Id
+    @Column(name = "granularity", nullable = false, length = 8)
+    private String granularity;
+
+    @Id
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "bookings", nullable = false)
+    private long bookings;
+
+    @Column(name = "seats", nullable = false)
+    private long seats;
+
+    @Column(name = "revenue", nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue;
+
+    @Column(name = "cancellations", nullable = false)
+    private long cancellations;
+}
@@ -0,0 +1,60 @@
+package com.eventbooking.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Durable record of a verified wallet webhook. The HTTP handler only writes
+ * this row; {@code WebhookInboxService} workers process it afterwards.
+ */
+@Entity
+@Table(name = "webhook_inbox")
+@Data
+@NoArgsConstructor
+public class WebhookInboxEvent {
+
+    public static final String STATUS_RECEIVED = "RECEIVED";
+    public static final String STATUS_PROCESSING = "PROCESSING";
+    public static final String STATUS_PROCESSED = "PROCESSED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID id;
+
+    @Column(name = "event_id", nullable = false, unique = true)
+    private String eventId; // Dedup key: event type + gateway payment id
+
+    @Column(name = "event_type")
+    private String eventType;
+
+    @Column(name = "reference_id")
+    private String referenceId;
+
+    @Column(name = "payload", columnDefinition = "TEXT", nullable = false)
+    private String payload;
+
+    @Column(name = "status", nullable = false)
+    private String status = STATUS_RECEIVED;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts = 0;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "locked_at")
+    private LocalDateTime lockedAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+}
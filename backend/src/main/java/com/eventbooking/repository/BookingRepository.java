@@ -1,16 +1,136 @@
 package com.eventbooking.repository;
 
+import com.eventbooking.dto.AdminBookingRow;
+import com.eventbooking.dto.BookingStatusTotals;
+import com.eventbooking.dto.CheckInState;
+import com.eventbooking.dto.EventBookingTotals;
+import com.eventbooking.dto.MyBookingRow;
+import com.eventbooking.dto.ReminderRecipient;
+import com.eventbooking.dto.TicketFacts;
 import com.eventbooking.model.Booking;
+import com.eventbooking.model.Event;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface BookingRepository extends JpaRepository<Booking, UUID> {
     List<Booking> findByUser_Id(UUID userId);
 
+    @Query("SELECT b.id AS bookingId, e.id AS eventId, c.id AS categoryId, b.seatsBooked AS seatsBooked, "
+            + "e.eventDate AS eventDate, b.user.id AS userId "
+            + "FROM Booking b JOIN b.eventCategory c JOIN c.event e WHERE b.id = :id")
+    Optional<TicketFacts> findTicketFacts(@Param("id") UUID id);
+
+    @Query("SELECT b.status AS status, b.checkedIn AS checkedIn, b.checkedInAt AS checkedInAt, "
+            + "b.checkedInDevice AS checkedInDevice FROM Booking b WHERE b.id = :id")
+    Optional<CheckInState> findCheckInState(@Param("id") UUID id);
+
+    // Gate check-ins: the earliest scan wins. First entry for a booking...
+    @Modifying
+    @Query("UPDATE Booking b SET b.checkedIn = true, b.checkedInAt = :at, b.checkedInDevice = :device, "
+            + "b.updatedAt = :now WHERE b.id = :id AND b.checkedIn = false AND b.status <> 'CANCELLED'")
+    int checkInFirst(@Param("id") UUID id, @Param("at") LocalDateTime at, @Param("device") String device,
+            @Param("now") LocalDateTime now);
+
+    // ...or an offline gate reporting an entry earlier than the one recorded
+    @Modifying
+    @Query("UPDATE Booking b SET b.checkedInAt = :at, b.checkedInDevice = :device, b.updatedAt = :now "
+            + "WHERE b.id = :id AND b.checkedIn = true AND b.checkedInAt > :at AND b.status <> 'CANCELLED'")
+    int checkInEarlier(@Param("id") UUID id, @Param("at") LocalDateTime at, @Param("device") String device,
+            @Param("now") LocalDateTime now);
+
+    // A user's bookings newest first, keyset-paged on (bookingTime, id); see idx_bookings_user_time
+    @Query("SELECT b.id AS id, b.bookingTime AS bookingTime, b.status AS status, "
+            + "b.seatsBooked AS seatsBooked, b.seatIdentifiers AS seatIdentifiers, b.checkedIn AS checkedIn, "
+            + "b.checkedInAt AS checkedInAt, c.categoryName AS categoryName, c.price AS price, e.id AS eventId, "
+            + "e.name AS eventName, e.eventDate AS eventDate, e.imageUrl AS imageUrl, "
+            + "e.locationName AS locationName, e.isCancelled AS eventCancelled "
+            + "FROM Booking b JOIN b.eventCategory c JOIN c.event e WHERE b.user.id = :userId "
+            + "ORDER BY b.bookingTime DESC, b.id DESC")
+    List<MyBookingRow> findMyRows(@Param("userId") UUID userId, Pageable page);
+
+    @Query("SELECT b.id AS id, b.bookingTime AS bookingTime, b.status AS status, "
+            + "b.seatsBooked AS seatsBooked, b.seatIdentifiers AS seatIdentifiers, b.checkedIn AS checkedIn, "
+            + "b.checkedInAt AS checkedInAt, c.categoryName AS categoryName, c.price AS price, e.id AS eventId, "
+            + "e.name AS eventName, e.eventDate AS eventDate, e.imageUrl AS imageUrl, "
+            + "e.locationName AS locationName, e.isCancelled AS eventCancelled "
+            + "FROM Booking b JOIN b.eventCategory c JOIN c.event e WHERE b.user.id = :userId "
+            + "AND (b.bookingTime < :beforeTime OR (b.bookingTime = :beforeTime AND b.id < :beforeId)) "
+            + "ORDER BY b.bookingTime DESC, b.id DESC")
+    List<MyBookingRow> findMyRowsBefore(@Param("userId") UUID userId, @Param("beforeTime") LocalDateTime beforeTime,
+            @Param("beforeId") UUID beforeId, Pageable page);
+
+    // Admin list: one query per event filter, so no null UUID is ever bound (PostgreSQL cannot type
+    // an untyped null in "? IS NULL"); a null status binds as a typed VARCHAR and is fine
+    String ADMIN_ROW_SELECT = "SELECT b.id AS id, b.bookingTime AS bookingTime, b.status AS status, "
+            + "b.seatsBooked AS seatsBooked, b.seatIdentifiers AS seatIdentifiers, b.paymentId AS paymentId, "
+            + "b.checkedIn AS checkedIn, b.checkedInAt AS checkedInAt, u.id AS userId, u.email AS userEmail, "
+            + "u.name AS userName, e.id AS eventId, e.name AS eventName, c.categoryName AS categoryName, "
+            + "c.price AS price FROM Booking b JOIN b.user u JOIN b.eventCategory c JOIN c.event e "
+            + "WHERE (:status IS NULL OR b.status = :status)";
+
+    String ADMIN_ROW_COUNT = "SELECT COUNT(b) FROM Booking b JOIN b.eventCategory c "
+            + "WHERE (:status IS NULL OR b.status = :status)";
+
+    @Query(value = ADMIN_ROW_SELECT, countQuery = ADMIN_ROW_COUNT)
+    Page<AdminBookingRow> findAdminRows(@Param("status") String status, Pageable page);
+
+    @Query(value = ADMIN_ROW_SELECT + " AND e.id = :eventId",
+            countQuery = ADMIN_ROW_COUNT + " AND c.event.id = :eventId")
+    Page<AdminBookingRow> findAdminRowsForEvent(@Param("status") String status, @Param("eventId") UUID eventId,
+            Pageable page);
+
+    // Dashboard totals without loading the bookings (or their eagerly fetched user, category and event)
+    @Query("SELECT b.status AS status, COUNT(b) AS bookings, SUM(c.price * b.seatsBooked) AS seatTotal "
+            + "FROM Booking b JOIN b.eventCategory c WHERE b.user.id = :userId GROUP BY b.status")
+    List<BookingStatusTotals> sumByStatusForUser(@Param("userId") UUID userId);
+
+    @Query("SELECT c.event.id AS eventId, COUNT(b) AS bookings, COALESCE(SUM(b.seatsBooked), 0) AS seats, "
+            + "SUM(CASE WHEN b.status = 'CANCELLED' THEN 1 ELSE 0 END) AS cancelled, "
+            + "SUM(CASE WHEN b.status = 'CONFIRMED' THEN c.price * b.seatsBooked ELSE 0 END) AS confirmedRevenue, "
+            + "SUM(CASE WHEN b.checkedIn = true THEN 1 ELSE 0 END) AS checkIns "
+            + "FROM Booking b JOIN b.eventCategory c GROUP BY c.event.id")
+    List<EventBookingTotals> sumByEvent();
+
     List<Booking> findByEventCategory_Event_Id(UUID eventId);
 
     List<Booking> findByEventCategory_IdAndStatus(UUID categoryId, String status);
 
     boolean existsByPaymentId(String paymentId);
+
+    /** Upcoming, not cancelled events that still have confirmed bookings owed a reminder. */
+    @Query("SELECT DISTINCT e FROM Booking b JOIN b.eventCategory c JOIN c.event e "
+            + "LEFT JOIN UserPreferences p ON p.user = b.user "
+            + "WHERE e.eventDate >= :from AND e.eventDate < :to AND e.isCancelled = false "
+            + "AND b.status = 'CONFIRMED' AND b.reminderSentAt IS NULL "
+            + "AND (p.id IS NULL OR p.eventReminders = true)")
+    List<Event> findEventsAwaitingReminders(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * One keyset page of an event's reminder recipients: confirmed, not yet
+     * reminded, and not opted out (users without a preferences row get the
+     * default, which is opted in).
+     */
+    @Query("SELECT b.id AS bookingId, u.email AS email, u.name AS name, c.categoryName AS categoryName, "
+            + "b.seatsBooked AS seatsBooked, b.seatIdentifiers AS seatIdentifiers "
+            + "FROM Booking b JOIN b.user u JOIN b.eventCategory c "
+            + "LEFT JOIN UserPreferences p ON p.user = u "
+            + "WHERE c.event.id = :eventId AND b.status = 'CONFIRMED' AND b.reminderSentAt IS NULL "
+            + "AND (p.id IS NULL OR p.eventReminders = true) AND b.id > :after "
+            + "ORDER BY b.id")
+    List<ReminderRecipient> findReminderRecipients(@Param("eventId") UUID eventId, @Param("after") UUID after,
+            Pageable page);
+
+    @Modifying
+    @Query("UPDATE Booking b SET b.reminderSentAt = :now WHERE b.id IN :ids AND b.reminderSentAt IS NULL")
+    int markReminded(@Param("ids") Collection<UUID> ids, @Param("now") LocalDateTime now);
 }
@@ -0,0 +1,46 @@
+package com.eventbooking.repository;
+
+import com.eventbooking.model.EmailJob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface EmailJobRepository extends JpaRepository<EmailJob, UUID> {
+
+    @Query("SELECT j.id FROM EmailJob j WHERE j.status = 'PENDING' AND j.priority = :priority "
+            + "AND j.nextAttemptAt <= :now ORDER BY j.nextAttemptAt")
+    List<UUID> findDueIds(@Param("priority") String priority, @Param("now") LocalDateTime now, Pageable page);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailJob j SET j.status = 'SENDING', j.lockedAt = :now "
+            + "WHERE j.id = :id AND j.status = 'PENDING'")
+    int claim(@Param("id") UUID id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailJob j SET j.status = 'PENDING', j.lockedAt = null "
+            + "WHERE j.status = 'SENDING' AND j.lockedAt < :staleBefore")
+    int releaseStale(@Param("staleBefore") LocalDateTime staleBefore);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM EmailJob j WHERE j.status = 'SENT' AND j.sentAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM EmailJob j WHERE j.status = 'DEAD' AND j.createdAt < :before")
+    int deleteDeadBefore(@Param("before") LocalDateTime before);
+
+    long countByStatus(String status);
+
+    long countByStatusAndPriority(String status, String priority);
+}
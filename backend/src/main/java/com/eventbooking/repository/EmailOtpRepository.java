@@ -2,11 +2,27 @@ package com.eventbooking.repository;
 
 import com.eventbooking.model.EmailOtp;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface EmailOtpRepository extends JpaRepository<EmailOtp, UUID> {
     Optional<EmailOtp> findByEmailAndOtpAndPurpose(String email, String otp, String purpose);
 
+    Optional<EmailOtp> findFirstByEmailAndPurposeOrderByCreatedAtDesc(String email, String purpose);
+
     void deleteByEmailAndPurpose(String email, String purpose);
+
+    /** Counts one attempt; returns 0 once the code has used up its attempts. */
+    @Modifying
+    @Query("UPDATE EmailOtp o SET o.attempts = o.attempts + 1 WHERE o.id = :id AND o.attempts < :maxAttempts")
+    int recordAttempt(@Param("id") UUID id, @Param("maxAttempts") int maxAttempts);
+
+    @Modifying
+    @Query("DELETE FROM EmailOtp o WHERE o.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
 }
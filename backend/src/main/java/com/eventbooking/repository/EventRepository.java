@@ -1,6 +1,7 @@
 package com.eventbooking.repository;
 
 import com.eventbooking.model.Event;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
@@ -12,10 +13,21 @@ import java.util.UUID;
 
 public interface EventRepository extends JpaRepository<Event, UUID> {
 
+    // Events are returned to the API as entities and open-in-view is off, so the reads the
+    // controllers serialize fetch their categories up front
+    @Override
+    @EntityGraph(attributePaths = "categories")
+    List<Event> findAll();
+
+    @EntityGraph(attributePaths = "categories")
+    @Query("SELECT e FROM Event e WHERE e.id = :id")
+    Optional<Event> findWithCategoriesById(@Param("id") UUID id);
+
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT e FROM Event e WHERE e.id = :id")
     Optional<Event> findByIdWithLock(@Param("id") UUID id);
 
+    @EntityGraph(attributePaths = "categories")
     @Query("SELECT e FROM Event e WHERE (6371 * acos(cos(radians(:lat)) * cos(radians(e.latitude)) * cos(radians(e.longitude) - radians(:lng)) + sin(radians(:lat)) * sin(radians(e.latitude)))) < :radius")
     List<Event> findEventsWithinRadius(
             @Param("lat") double lat,
@@ -0,0 +1,39 @@
+package com.eventbooking.repository;
+
+import com.eventbooking.model.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, UUID> {
+
+    @Query("SELECT o FROM OutboxEvent o WHERE o.status = 'PENDING' AND o.nextAttemptAt <= :now "
+            + "ORDER BY o.createdAt")
+    List<OutboxEvent> findDue(@Param("now") LocalDateTime now, Pageable page);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboxEvent o SET o.status = 'SENDING', o.lockedAt = :now "
+            + "WHERE o.id = :id AND o.status = 'PENDING'")
+    int claim(@Param("id") UUID id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboxEvent o SET o.status = 'PENDING', o.lockedAt = null "
+            + "WHERE o.status = 'SENDING' AND o.lockedAt < :staleBefore")
+    int releaseStale(@Param("staleBefore") LocalDateTime staleBefore);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM OutboxEvent o WHERE o.status = 'SENT' AND o.sentAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+
+    long countByStatus(String status);
+}
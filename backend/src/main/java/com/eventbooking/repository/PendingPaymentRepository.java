@@ -1,12 +1,64 @@
 package com.eventbooking.repository;
 
 import com.eventbooking.model.PendingPayment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Repository
 public interface PendingPaymentRepository extends JpaRepository<PendingPayment, String> {
-    void deleteByCreatedAtBefore(LocalDateTime expiry);
+    /**
+     * Compare-and-set on the payment status. Returns 1 if this caller won the
+     * transition, 0 if the row was missing or in another state.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE PendingPayment p SET p.status = :to, p.updatedAt = :now "
+            + "WHERE p.referenceId = :ref AND p.status = :from")
+    int transition(@Param("ref") String referenceId, @Param("from") String from, @Param("to") String to,
+            @Param("now") LocalDateTime now);
+
+    /**
+     * Claims a payment for verification. A VERIFYING claim older than
+     * {@code staleBefore} is treated as abandoned (its owner crashed) and may be taken over.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE PendingPayment p SET p.status = 'VERIFYING', p.updatedAt = :now "
+            + "WHERE p.referenceId = :ref AND (p.status = 'PENDING' "
+            + "OR (p.status = 'VERIFYING' AND p.updatedAt < :staleBefore))")
+    int claimForVerification(@Param("ref") String referenceId, @Param("staleBefore") LocalDateTime staleBefore,
+            @Param("now") LocalDateTime now);
+
+    /** Keyset page of PENDING payments created before {@code cutoff}, oldest first. */
+    @Query("SELECT p FROM PendingPayment p WHERE p.status = 'PENDING' AND p.createdAt < :cutoff "
+            + "AND (p.createdAt > :afterCreatedAt OR (p.createdAt = :afterCreatedAt AND p.referenceId > :afterRef)) "
+            + "ORDER BY p.createdAt, p.referenceId")
+    List<PendingPayment> findStalePending(@Param("cutoff") LocalDateTime cutoff,
+            @Param("afterCreatedAt") LocalDateTime afterCreatedAt, @Param("afterRef") String afterRef,
+            Pageable page);
+
+    @Query("SELECT MIN(p.createdAt) FROM PendingPayment p WHERE p.status = 'PENDING'")
+    LocalDateTime findOldestPendingCreatedAt();
+
+    /** Sends payments stranded between verification and booking (finalizer crashed) back to PENDING. */
+    @Modifying
+    @Transactional
+    @Query("UPDATE PendingPayment p SET p.status = 'PENDING', p.updatedAt = :now "
+            + "WHERE p.status = 'VERIFIED' AND p.updatedAt < :staleBefore")
+    int resetStaleVerified(@Param("staleBefore") LocalDateTime staleBefore, @Param("now") LocalDateTime now);
+
+    /** Bulk-deletes rows in the given (terminal) states last touched before {@code before}. */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM PendingPayment p WHERE p.status IN :statuses "
+            + "AND COALESCE(p.updatedAt, p.createdAt) < :before")
+    int deleteByStatusesBefore(@Param("statuses") List<String> statuses, @Param("before") LocalDateTime before);
 }
@@ -0,0 +1,39 @@
+package com.eventbooking.repository;
+
+import com.eventbooking.dto.SalesPoint;
+import com.eventbooking.model.SalesRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface SalesRollupRepository extends JpaRepository<SalesRollup, SalesRollup.Key> {
+
+    @Query("SELECT r.bucketStart AS bucketStart, SUM(r.bookings) AS bookings, SUM(r.seats) AS seats, "
+            + "SUM(r.revenue) AS revenue, SUM(r.cancellations) AS cancellations FROM SalesRollup r "
+            + "WHERE r.eventId = :eventId AND r.granularity = :granularity "
+            + "AND r.bucketStart >= :from AND r.bucketStart < :to "
+            + "GROUP BY r.bucketStart ORDER BY r.bucketStart")
+    List<SalesPoint> findSeries(@Param("eventId") UUID eventId, @Param("granularity") String granularity,
+            @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT r.bucketStart AS bucketStart, r.bookings AS bookings, r.seats AS seats, "
+            + "r.revenue AS revenue, r.cancellations AS cancellations FROM SalesRollup r "
+            + "WHERE r.eventId = :eventId AND r.categoryId = :categoryId AND r.granularity = :granularity "
+            + "AND r.bucketStart >= :from AND r.bucketStart < :to ORDER BY r.bucketStart")
+    List<SalesPoint> findCategorySeries(@Param("eventId") UUID eventId, @Param("categoryId") UUID categoryId,
+            @Param("granularity") String granularity, @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
+    @Modifying
+    @Query("DELETE FROM SalesRollup r WHERE r.granularity = :granularity AND r.bucketStart < :before")
+    int deleteOlderThan(@Param("granularity") String granularity, @Param("before") LocalDateTime before);
+
+    @Modifying
+    @Query("DELETE FROM SalesRollup r WHERE r.eventId = :eventId")
+    int deleteByEventId(@Param("eventId") UUID eventId);
+}
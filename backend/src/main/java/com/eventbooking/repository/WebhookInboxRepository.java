@@ -0,0 +1,37 @@
+package com.eventbooking.repository;
+
+import com.eventbooking.model.WebhookInboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface WebhookInboxRepository extends JpaRepository<WebhookInboxEvent, UUID> {
+
+    boolean existsByEventId(String eventId);
+
+    @Query("SELECT w.id FROM WebhookInboxEvent w WHERE w.status = 'RECEIVED' AND w.nextAttemptAt <= :now "
+            + "ORDER BY w.receivedAt")
+    List<UUID> findDueIds(@Param("now") LocalDateTime now, Pageable page);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE WebhookInboxEvent w SET w.status = 'PROCESSING', w.lockedAt = :now "
+            + "WHERE w.id = :id AND w.status = 'RECEIVED'")
+    int claim(@Param("id") UUID id, @Param("now") LocalDateTime now);
+
+    /** Releases rows whose worker died mid-processing so they are picked up again. */
+    @Modifying
+    @Transactional
+    @Query("UPDATE WebhookInboxEvent w SET w.status = 'RECEIVED', w.lockedAt = null "
+            + "WHERE w.status = 'PROCESSING' AND w.lockedAt < :staleBefore")
+    int releaseStale(@Param("staleBefore") LocalDateTime staleBefore);
+
+    long countByStatus(String status);
+}
@@ -23,7 +23,8 @@ public class CustomCorsFilter implements Filter {
             response.setHeader("Access-Control-Allow-Origin", origin);
             response.setHeader("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS, PATCH");
             response.setHeader("Access-Control-Allow-Headers",
-                    "Authorization, Content-Type, Accept, X-Requested-With, Origin, Bypass-Tunnel-Reminder");
+                    "Authorization, Content-Type, Accept, X-Requested-With, Origin, Bypass-Tunnel-Reminder, X-Correlation-Id");
+            response.setHeader("Access-Control-Expose-Headers", "X-Correlation-Id");
             response.setHeader("Access-Control-Allow-Credentials", "true");
             response.setHeader("Access-Control-Max-Age", "3600");
         }
@@ -1,11 +1,15 @@
 package com.eventbooking.security;
 
 import com.eventbooking.service.CustomUserDetailsService;
+import com.eventbooking.util.SampledLogger;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -17,12 +21,23 @@ import java.io.IOException;
 @org.springframework.stereotype.Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    // Expired tokens arrive on every request of an idle tab; keep the cost of logging them flat
+    private static final SampledLogger rejectedTokenLog = new SampledLogger(
+            LoggerFactory.getLogger(JwtAuthenticationFilter.class), "auth.rejected-token", 2, 10);
+
     @Autowired
     private CustomUserDetailsService userDetailsService;
 
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private TokenRevocationCache revocationCache;
+
+    // Stateless: the principal comes from the verified claims. Off: load the user from the database per request
+    @Value("${security.jwt.stateless:true}")
+    private boolean stateless;
+
     @Override
     protected boolean shouldNotFilter(@org.springframework.lang.NonNull HttpServletRequest request)
             throws ServletException {
@@ -59,37 +74,37 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             @org.springframework.lang.NonNull FilterChain chain)
             throws ServletException, IOException {
 
-        final String path = request.getRequestURI();
         final String authorizationHeader = request.getHeader("Authorization");
 
-        String username = null;
-        String jwt = null;
-
-        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7).trim();
-            try {
-                username = jwtUtil.getUsernameFromToken(jwt);
-                System.out.println("[JWT FILTER] Extracted user: " + username + " for " + path);
-            } catch (Exception e) {
-                System.err.println("[JWT FILTER] Token Parse Error: " + e.getMessage());
-            }
-        } else {
-            System.out.println("[JWT FILTER] No token found for: " + path);
-        }
-
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            String jwt = authorizationHeader.substring(7).trim();
             try {
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-                if (jwtUtil.validateToken(jwt, userDetails)) {
+                UserDetails principal = authenticate(jwt);
+                if (principal != null) {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails, null, userDetails.getAuthorities());
+                            principal, null, principal.getAuthorities());
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authToken);
                 }
             } catch (Exception e) {
-                System.err.println("[JWT FILTER] Context Setup Error: " + e.getMessage());
+                rejectedTokenLog.debug("Rejected bearer token for {}: {}", request.getRequestURI(), e.getMessage());
             }
         }
         chain.doFilter(request, response);
     }
+
+    /** Parses the token once; returns null if it was revoked or no longer matches a user. */
+    private UserDetails authenticate(String jwt) {
+        Claims claims = jwtUtil.parseClaims(jwt);
+        JwtUserPrincipal principal = jwtUtil.toPrincipal(claims);
+        if (revocationCache.isRevoked(principal.getUserId(), claims.getIssuedAt())) {
+            return null;
+        }
+        if (stateless) {
+            return principal;
+        }
+        UserDetails userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+        return userDetails.getUsername().equals(claims.getSubject()) ? userDetails : null;
+    }
 }
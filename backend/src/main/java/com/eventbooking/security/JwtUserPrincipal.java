@@ -0,0 +1,82 @@
+package com.eventbooking.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Authenticated user rebuilt from verified token claims, with no database
+ * lookup. {@link #getUsername()} is the email (the token subject), so
+ * {@code authentication.getName()} keeps returning the email as it did with
+ * the database-backed principal.
+ */
+public class JwtUserPrincipal implements UserDetails {
+
+    private final UUID userId;
+    private final String email;
+    private final String role;
+    private final List<GrantedAuthority> authorities;
+
+    public JwtUserPrincipal(UUID userId, String email, String role) {
+        this.userId = userId;
+        this.email = email;
+        this.role = role;
+        this.authorities = List.of(new SimpleGrantedAuthority("ROLE_" + role));
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "JwtUserPrincipal[" + userId + ", " + email + ", " + role + "]";
+    }
+}
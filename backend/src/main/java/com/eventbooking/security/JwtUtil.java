@@ -1,6 +1,7 @@
 package com.eventbooking.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 
 import io.jsonwebtoken.security.Keys;
@@ -20,7 +21,9 @@ public class JwtUtil {
     // In production, this should be in application.properties
     private static final String SECRET_STRING = "MySuperSecretKeyForEventBookingSystem_MustBeLongEnoughToEduceSecurity";
     private final Key key = Keys.hmacShaKeyFor(SECRET_STRING.getBytes(java.nio.charset.StandardCharsets.UTF_8));
-    private final long JWT_TOKEN_VALIDITY = 5 * 60 * 60 * 1000; // 5 hours
+    static final long JWT_TOKEN_VALIDITY = 5 * 60 * 60 * 1000; // 5 hours
+    // Immutable and thread-safe: built once instead of per parse
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(key).build();
 
     public String getUsernameFromToken(String token) {
         return getClaimFromToken(token, Claims::getSubject);
@@ -35,13 +38,27 @@ public class JwtUtil {
         return claimsResolver.apply(claims);
     }
 
-    private Claims getAllClaimsFromToken(String token) {
-        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+    /**
+     * Verifies the signature and expiry in one pass and returns the claims;
+     * throws {@link io.jsonwebtoken.JwtException} if the token is invalid.
+     */
+    public Claims parseClaims(String token) {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    /** Builds the principal straight from verified claims; no user lookup. */
+    public JwtUserPrincipal toPrincipal(Claims claims) {
+        Object userId = claims.get("userId");
+        Object role = claims.get("role");
+        if (userId == null || role == null) {
+            throw new io.jsonwebtoken.MalformedJwtException("Token is missing the userId or role claim");
+        }
+        return new JwtUserPrincipal(java.util.UUID.fromString(userId.toString()), claims.getSubject(),
+                role.toString());
     }
 
-    private Boolean isTokenExpired(String token) {
-        final Date expiration = getExpirationDateFromToken(token);
-        return expiration.before(new Date());
+    private Claims getAllClaimsFromToken(String token) {
+        return parseClaims(token);
     }
 
     public String generateToken(UserDetails userDetails, String role, java.util.UUID userId) {
@@ -62,7 +79,7 @@ public class JwtUtil {
     }
 
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = getUsernameFromToken(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        final Claims claims = parseClaims(token);
+        return (claims.getSubject().equals(userDetails.getUsername()) && !claims.getExpiration().before(new Date()));
     }
 }
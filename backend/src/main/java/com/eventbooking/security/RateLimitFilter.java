@@ -0,0 +1,163 @@
+package com.eventbooking.security;
+
+import com.eventbooking.util.KeyedRateLimiter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-route request rate limits, applied inside the security chain right after
+ * {@link JwtAuthenticationFilter} so signed-in callers are keyed by user id and
+ * everyone else by client IP. The first policy whose method and path prefix
+ * match decides; a rejected request gets 429 with {@code Retry-After} and never
+ * reaches a controller or the database.
+ * <p>
+ * Registered only through {@link SecurityConfig}; the servlet-level
+ * registration is switched off there, otherwise it would run once more before
+ * authentication and key everyone by IP.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private record Policy(String name, String method, String pathPrefix, boolean perUser,
+            KeyedRateLimiter limiter) {
+
+        boolean matches(String requestMethod, String path) {
+            return (method == null || method.equalsIgnoreCase(requestMethod)) && path.startsWith(pathPrefix);
+        }
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${rate-limit.max-keys:50000}")
+    private int maxKeys;
+
+    @Value("${rate-limit.hold.burst:5}")
+    private double holdBurst;
+
+    @Value("${rate-limit.hold.per-second:1}")
+    private double holdPerSecond;
+
+    @Value("${rate-limit.occupied.burst:30}")
+    private double occupiedBurst;
+
+    @Value("${rate-limit.occupied.per-second:5}")
+    private double occupiedPerSecond;
+
+    @Value("${rate-limit.auth.burst:20}")
+    private double authBurst;
+
+    @Value("${rate-limit.auth.per-second:1}")
+    private double authPerSecond;
+
+    @Value("${rate-limit.default.burst:100}")
+    private double defaultBurst;
+
+    @Value("${rate-limit.default.per-second:20}")
+    private double defaultPerSecond;
+
+    private List<Policy> policies;
+
+    @PostConstruct
+    public void init() {
+        policies = List.of(
+                policy("hold", "POST", "/api/bookings/hold", true, holdBurst, holdPerSecond),
+                policy("occupied", "GET", "/api/bookings/occupied/", false, occupiedBurst, occupiedPerSecond),
+                policy("auth", null, "/api/auth/", false, authBurst, authPerSecond),
+                policy("default", null, "/api/", true, defaultBurst, defaultPerSecond));
+        for (Policy policy : policies) {
+            Gauge.builder("http.rate_limit.keys", policy.limiter(), KeyedRateLimiter::size)
+                    .tag("policy", policy.name())
+                    .description("Clients currently tracked by the rate limiter")
+                    .register(meterRegistry);
+        }
+    }
+
+    private Policy policy(String name, String method, String pathPrefix, boolean perUser, double burst,
+            double perSecond) {
+        return new Policy(name, method, pathPrefix, perUser,
+                new KeyedRateLimiter(Math.max(1, burst), perSecond, maxKeys));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        // Preflights carry no credentials, and the wallet's webhook is authenticated by its signature
+        return !enabled || "OPTIONS".equalsIgnoreCase(request.getMethod())
+                || request.getRequestURI().equals("/api/payments/webhook-callback");
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+            @NonNull FilterChain chain) throws ServletException, IOException {
+        String path = request.getRequestURI();
+        Policy policy = null;
+        for (Policy candidate : policies) {
+            if (candidate.matches(request.getMethod(), path)) {
+                policy = candidate;
+                break;
+            }
+        }
+        if (policy == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        long waitNanos = policy.limiter().tryAcquire(clientKey(request, policy.perUser()));
+        if (waitNanos == 0) {
+            chain.doFilter(request, response);
+            return;
+        }
+        meterRegistry.counter("http.rate_limited", "policy", policy.name()).increment();
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader("Retry-After", Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write(
+                "{\"status\":429,\"error\":\"Too Many Requests\",\"message\":\"Too many requests; please slow down\"}");
+    }
+
+    private static String clientKey(HttpServletRequest request, boolean perUser) {
+        if (perUser) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication != null && !(authentication instanceof AnonymousAuthenticationToken)) {
+                Object principal = authentication.getPrincipal();
+                if (principal instanceof JwtUserPrincipal jwtPrincipal) {
+                    return "u:" + jwtPrincipal.getUserId();
+                }
+                return "u:" + authentication.getName();
+            }
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    /** Forgets clients whose buckets have refilled, so the maps only hold recently active callers. */
+    @Scheduled(fixedDelayString = "${rate-limit.sweep-interval-ms:60000}")
+    public void evictIdle() {
+        for (Policy policy : policies) {
+            policy.limiter().evictIdle();
+        }
+    }
+}
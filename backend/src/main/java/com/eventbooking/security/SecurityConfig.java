@@ -1,7 +1,10 @@
 package com.eventbooking.security;
 
 import com.eventbooking.service.CustomUserDetailsService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -12,7 +15,6 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
@@ -29,6 +31,21 @@ public class SecurityConfig {
         @Autowired
         private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+        @Autowired
+        private RateLimitFilter rateLimitFilter;
+
+        @Autowired
+        private MeterRegistry meterRegistry;
+
+        @Value("${password.hashing.threads:0}")
+        private int hashThreads;
+
+        @Value("${password.hashing.queue-capacity:64}")
+        private int hashQueueCapacity;
+
+        @Value("${password.hashing.max-wait-ms:2000}")
+        private long hashMaxWaitMs;
+
         @Bean
         public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
                 http
@@ -42,10 +59,22 @@ public class SecurityConfig {
                                                 .requestMatchers(HttpMethod.GET, "/api/bookings/occupied/**")
                                                 .permitAll()
                                                 .requestMatchers("/api/bookings/ping").permitAll()
+                                                // Authenticated by its HMAC signature, not a user token;
+                                                // WebhookController refuses to start without a secret
+                                                .requestMatchers(HttpMethod.POST, "/api/payments/webhook-callback")
+                                                .permitAll()
+                                                .requestMatchers(HttpMethod.GET, "/api/tickets/keys").permitAll()
+                                                // Health stays open for load balancer probes; metrics are admin-only
+                                                .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                                                .requestMatchers("/actuator/**").hasRole("ADMIN")
                                                 .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                                                .requestMatchers("/api/tickets/**").hasRole("ADMIN")
                                                 .requestMatchers(HttpMethod.POST, "/api/events/**").hasRole("ADMIN")
                                                 .requestMatchers(HttpMethod.PUT, "/api/events/**").hasRole("ADMIN")
                                                 .requestMatchers(HttpMethod.DELETE, "/api/events/**").hasRole("ADMIN")
+                                                .requestMatchers(HttpMethod.GET, "/api/bookings", "/api/bookings/export",
+                                                                "/api/bookings/stats", "/api/bookings/stats/**")
+                                                .hasRole("ADMIN")
                                                 .requestMatchers("/api/bookings/**").authenticated()
                                                 .requestMatchers("/api/payments/**").authenticated()
                                                 .requestMatchers("/api/users/**").authenticated()
@@ -56,11 +85,20 @@ public class SecurityConfig {
                                                 .crossOriginOpenerPolicy(coop -> coop.policy(
                                                                 org.springframework.security.web.header.writers.CrossOriginOpenerPolicyHeaderWriter.CrossOriginOpenerPolicy.SAME_ORIGIN_ALLOW_POPUPS)))
                                 .authenticationProvider(authenticationProvider())
-                                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+                                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+                                .addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class);
 
                 return http.build();
         }
 
+        // The rate limiter must only run inside the security chain, after the JWT filter
+        @Bean
+        public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration() {
+                FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(rateLimitFilter);
+                registration.setEnabled(false);
+                return registration;
+        }
+
         @Bean
         public AuthenticationManager authenticationManager(AuthenticationConfiguration authConfig) throws Exception {
                 return authConfig.getAuthenticationManager();
@@ -74,9 +112,11 @@ public class SecurityConfig {
                 return authProvider;
         }
 
-        @Bean
-        public PasswordEncoder passwordEncoder() {
-                return new BCryptPasswordEncoder();
+        // BCrypt runs on a bounded pool so login bursts cannot starve request threads
+        @Bean(destroyMethod = "shutdown")
+        public BoundedPasswordEncoder passwordEncoder() {
+                return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), hashThreads, hashQueueCapacity,
+                                hashMaxWaitMs, meterRegistry);
         }
 
 }
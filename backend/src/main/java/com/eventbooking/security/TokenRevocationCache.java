@@ -0,0 +1,54 @@
+package com.eventbooking.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-user "not valid before" marks for stateless JWT authentication. After
+ * a password change or an account deletion every token the user was issued
+ * earlier is rejected. A mark only has to outlive the longest token lifetime,
+ * so entries are dropped after that and the map stays small. The marks are
+ * kept in memory, per instance.
+ * <p>
+ * Nothing else revokes tokens. The role is read from the token's claims, so a
+ * role change only takes effect once the user's current tokens expire (or
+ * they sign in again), unless {@code security.jwt.stateless} is off.
+ */
+@Component
+public class TokenRevocationCache {
+
+    private final Map<UUID, Long> revokedBefore = new ConcurrentHashMap<>();
+
+    @Value("${security.jwt.revocation.enabled:true}")
+    private boolean enabled;
+
+    /** Revokes every token issued to {@code userId} up to now. */
+    public void revokeAll(UUID userId) {
+        if (!enabled || userId == null) {
+            return;
+        }
+        // iat has second precision; a token issued later in this same second stays valid
+        long mark = System.currentTimeMillis() / 1000 * 1000;
+        revokedBefore.merge(userId, mark, Math::max);
+    }
+
+    public boolean isRevoked(UUID userId, Date issuedAt) {
+        if (!enabled || userId == null) {
+            return false;
+        }
+        Long mark = revokedBefore.get(userId);
+        return mark != null && (issuedAt == null || issuedAt.getTime() < mark);
+    }
+
+    @Scheduled(fixedDelayString = "${security.jwt.revocation.sweep-interval-ms:600000}")
+    public void evictExpired() {
+        long cutoff = System.currentTimeMillis() - JwtUtil.JWT_TOKEN_VALIDITY;
+        revokedBefore.values().removeIf(mark -> mark < cutoff);
+    }
+}
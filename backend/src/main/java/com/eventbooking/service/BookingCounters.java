@@ -0,0 +1,217 @@
+package com.eventbooking.service;
+
+import com.eventbooking.dto.EventBookingTotals;
+import com.eventbooking.model.Booking;
+import com.eventbooking.repository.BookingRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-event booking totals (bookings, seats, cancellations, confirmed
+ * revenue, check-ins), and system totals summed from them, kept in memory so
+ * the admin dashboard never scans the bookings table.
+ * <p>
+ * Booking changes are applied as deltas once their transaction commits. A
+ * scheduled reconciliation replaces the totals with SQL aggregates, which also
+ * picks up changes made outside {@link BookingService} (event or user
+ * deletion, manual fixes). Each event's totals are an immutable value that
+ * deltas and reconciliation replace through the map's atomic per-key
+ * operations; reconciliation only swaps in the aggregate if the value is still
+ * the one it saw before the query ran, so a concurrent delta is never lost,
+ * the event is just left for the next pass.
+ */
+@Component
+public class BookingCounters {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingCounters.class);
+
+    /** Point-in-time totals for the whole system or one event. */
+    public record Snapshot(long bookings, long seats, long cancelled, BigDecimal revenue, long checkIns) {
+    }
+
+    /** Totals of one event; revenue is kept in the currency's minor unit. Replaced, never mutated. */
+    private record Totals(long bookings, long seats, long cancelled, long revenueMinor, long checkIns) {
+
+        Totals plus(Totals delta) {
+            return new Totals(bookings + delta.bookings, seats + delta.seats, cancelled + delta.cancelled,
+                    revenueMinor + delta.revenueMinor, checkIns + delta.checkIns);
+        }
+    }
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<UUID, Totals> byEvent = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("bookings.total", this, counters -> counters.system().bookings()).register(meterRegistry);
+        Gauge.builder("bookings.seats", this, counters -> counters.system().seats()).register(meterRegistry);
+        Gauge.builder("bookings.check_ins", this, counters -> counters.system().checkIns()).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reconcile();
+    }
+
+    /** Sums the per-event totals; there are far fewer events than bookings. */
+    public Snapshot system() {
+        ensureLoaded();
+        long bookings = 0, seats = 0, cancelled = 0, revenue = 0, checkIns = 0;
+        for (Totals totals : byEvent.values()) {
+            bookings += totals.bookings();
+            seats += totals.seats();
+            cancelled += totals.cancelled();
+            revenue += totals.revenueMinor();
+            checkIns += totals.checkIns();
+        }
+        return new Snapshot(bookings, seats, cancelled, BigDecimal.valueOf(revenue, 2), checkIns);
+    }
+
+    public Snapshot forEvent(UUID eventId) {
+        ensureLoaded();
+        Totals totals = byEvent.get(eventId);
+        if (totals == null) {
+            return new Snapshot(0, 0, 0, BigDecimal.ZERO.setScale(2), 0);
+        }
+        return new Snapshot(totals.bookings(), totals.seats(), totals.cancelled(),
+                BigDecimal.valueOf(totals.revenueMinor(), 2), totals.checkIns());
+    }
+
+    public void bookingCreated(Booking booking) {
+        boolean confirmed = "CONFIRMED".equals(booking.getStatus());
+        apply(booking, 1, booking.getSeatsBooked(), 0, confirmed ? revenueMinor(booking) : 0, 0);
+    }
+
+    /** Call only when the booking was not cancelled before. */
+    public void bookingCancelled(Booking booking, boolean wasConfirmed) {
+        apply(booking, 0, 0, 1, wasConfirmed ? -revenueMinor(booking) : 0, 0);
+    }
+
+    public void checkedIn(Booking booking) {
+        apply(booking, 0, 0, 0, 0, 1);
+    }
+
+    /** Check-in recorded without loading the booking (gate sync). */
+    public void checkedIn(UUID eventId) {
+        apply(eventId, 0, 0, 0, 0, 1);
+    }
+
+    public void checkInReset(Booking booking) {
+        apply(booking, 0, 0, 0, 0, -1);
+    }
+
+    private void apply(Booking booking, long bookingDelta, long seatDelta, long cancelledDelta, long revenueDelta,
+            long checkInDelta) {
+        apply(booking.getEventCategory().getEvent().getId(), bookingDelta, seatDelta, cancelledDelta, revenueDelta,
+                checkInDelta);
+    }
+
+    private void apply(UUID eventId, long bookingDelta, long seatDelta, long cancelledDelta, long revenueDelta,
+            long checkInDelta) {
+        Totals change = new Totals(bookingDelta, seatDelta, cancelledDelta, revenueDelta, checkInDelta);
+        Runnable delta = () -> byEvent.merge(eventId, change, Totals::plus);
+        // Rolled-back changes must not count
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    delta.run();
+                }
+            });
+        } else {
+            delta.run();
+        }
+    }
+
+    private static long revenueMinor(Booking booking) {
+        BigDecimal price = booking.getEventCategory().getPrice();
+        if (price == null) {
+            return 0;
+        }
+        return toMinor(price.multiply(BigDecimal.valueOf(booking.getSeatsBooked())));
+    }
+
+    private static long toMinor(BigDecimal amount) {
+        return amount == null ? 0 : amount.movePointRight(2).setScale(0, java.math.RoundingMode.HALF_UP).longValue();
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            reconcile();
+        }
+    }
+
+    /** Replaces the in-memory totals with SQL aggregates, skipping events that changed while the query ran. */
+    @Scheduled(fixedDelayString = "${bookings.counters.reconcile-interval-ms:300000}",
+            initialDelayString = "${bookings.counters.reconcile-interval-ms:300000}")
+    public synchronized void reconcile() {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            Map<UUID, Totals> before = new HashMap<>(byEvent);
+
+            List<EventBookingTotals> rows = bookingRepository.sumByEvent();
+
+            AtomicLong drifted = new AtomicLong();
+            Set<UUID> seen = new HashSet<>();
+            for (EventBookingTotals row : rows) {
+                seen.add(row.getEventId());
+                Totals fresh = new Totals(row.getBookings(), row.getSeats(), row.getCancelled(),
+                        toMinor(row.getConfirmedRevenue()), row.getCheckIns());
+                Totals expected = before.get(row.getEventId());
+                byEvent.compute(row.getEventId(), (id, current) -> {
+                    if (current != expected) {
+                        return current;
+                    }
+                    if (current == null || (current.bookings() != fresh.bookings() || current.seats() != fresh.seats()
+                            || current.cancelled() != fresh.cancelled() || current.checkIns() != fresh.checkIns())) {
+                        drifted.incrementAndGet();
+                    }
+                    return fresh;
+                });
+            }
+            // Events deleted since the last pass
+            before.forEach((id, totals) -> {
+                if (!seen.contains(id)) {
+                    byEvent.computeIfPresent(id, (key, current) -> current == totals ? null : current);
+                }
+            });
+
+            if (loaded && drifted.get() > 0) {
+                logger.info("Booking counters corrected for {} events", drifted.get());
+                meterRegistry.counter("bookings.counters.drift").increment(drifted.get());
+            }
+            loaded = true;
+        } catch (Exception e) {
+            logger.error("Booking counter reconciliation failed", e);
+        } finally {
+            sample.stop(meterRegistry.timer("bookings.counters.reconcile"));
+        }
+    }
+}
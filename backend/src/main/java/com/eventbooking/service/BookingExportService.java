@@ -0,0 +1,249 @@
+package com.eventbooking.service;
+
+import com.eventbooking.exception.TooManyRequestsException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Streams bookings as CSV or NDJSON straight from a forward-only JDBC cursor
+ * to the response. Rows are read {@code bookings.export.fetch-size} at a time
+ * and written as they arrive, so memory stays flat however many bookings
+ * there are. Each export holds one connection for its whole run, so only
+ * {@code bookings.export.max-concurrent} may run at once; the rest get 429.
+ */
+@Service
+public class BookingExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingExportService.class);
+
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_NDJSON = "ndjson";
+
+    private static final String[] COLUMNS = { "id", "booking_time", "status", "seats_booked", "seat_identifiers",
+            "payment_id", "checked_in", "checked_in_at", "user_id", "user_email", "user_name", "event_id",
+            "event_name", "category_name", "price" };
+
+    private static final String EXPORT_SQL = "SELECT b.id, b.booking_time, b.status, b.seats_booked, "
+            + "b.seat_identifiers, b.payment_id, b.checked_in, b.checked_in_at, u.id, u.email, u.name, "
+            + "e.id, e.name, c.category_name, c.price "
+            + "FROM bookings b JOIN users u ON u.id = b.user_id "
+            + "JOIN event_categories c ON c.id = b.event_category_id JOIN events e ON e.id = c.event_id";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${bookings.export.fetch-size:500}")
+    private int fetchSize;
+
+    @Value("${bookings.export.max-concurrent:2}")
+    private int maxConcurrent;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnlyTransaction;
+    private Semaphore exports;
+    private Counter exportedRows;
+
+    @PostConstruct
+    public void init() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(Math.max(1, fetchSize));
+        // PostgreSQL only honours the fetch size (a server-side cursor) outside autocommit
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        exports = new Semaphore(Math.max(1, maxConcurrent));
+        exportedRows = meterRegistry.counter("bookings.export.rows");
+    }
+
+    /** Claims an export slot; call {@link #export} next, which gives it back. */
+    public void reserveSlot() {
+        if (!exports.tryAcquire()) {
+            meterRegistry.counter("bookings.export.rejected").increment();
+            throw new TooManyRequestsException("Another bookings export is running; please retry shortly", 30);
+        }
+    }
+
+    /**
+     * Writes every booking (optionally only one status or event) to {@code out}
+     * and returns the row count, or -1 if the client disconnected. Releases the
+     * reserved slot.
+     */
+    public long export(String format, String status, UUID eventId, OutputStream out) throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            RowWriter rowWriter = FORMAT_NDJSON.equals(format) ? new NdjsonRowWriter(writer) : new CsvRowWriter(writer);
+            rowWriter.start();
+            long rows = streamRows(status, eventId, rowWriter);
+            writer.flush();
+            logger.info("Exported {} bookings as {}", rows, format);
+            return rows;
+        } catch (UncheckedIOException e) {
+            // The client went away mid-export; the response is committed, so there is nobody to answer
+            logger.info("Bookings export aborted: {}", e.getCause().getMessage());
+            return -1;
+        } finally {
+            exports.release();
+            sample.stop(meterRegistry.timer("bookings.export", "format", format));
+        }
+    }
+
+    private long streamRows(String status, UUID eventId, RowWriter rowWriter) {
+        StringBuilder sql = new StringBuilder(EXPORT_SQL);
+        List<Object> args = new ArrayList<>(2);
+        if (status != null) {
+            sql.append(" WHERE b.status = ?");
+            args.add(status);
+        }
+        if (eventId != null) {
+            sql.append(status != null ? " AND" : " WHERE").append(" e.id = ?");
+            args.add(eventId);
+        }
+        long[] rows = { 0 };
+        RowCallbackHandler handler = rs -> {
+            try {
+                rowWriter.write(rs);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            rows[0]++;
+            exportedRows.increment();
+        };
+        readOnlyTransaction.executeWithoutResult(tx -> jdbcTemplate.query(sql.toString(), handler, args.toArray()));
+        return rows[0];
+    }
+
+    private interface RowWriter {
+        void start() throws IOException;
+
+        void write(ResultSet rs) throws SQLException, IOException;
+    }
+
+    private static String text(ResultSet rs, int column) throws SQLException {
+        Object value = rs.getObject(column);
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime().toString();
+        }
+        return value.toString();
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+
+        CsvRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void start() throws IOException {
+            writer.write(String.join(",", COLUMNS));
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            for (int i = 1; i <= COLUMNS.length; i++) {
+                if (i > 1) {
+                    writer.write(',');
+                }
+                String value = text(rs, i);
+                if (value != null) {
+                    writeField(value);
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        private void writeField(String value) throws IOException {
+            // Names and seat labels are user input; keep spreadsheets from evaluating them as formulas
+            if (!value.isEmpty() && "=+-@".indexOf(value.charAt(0)) >= 0) {
+                value = "'" + value;
+            }
+            boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0
+                    || value.indexOf('\r') >= 0;
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+
+    private final class NdjsonRowWriter implements RowWriter {
+        private final Writer writer;
+        private final JsonGenerator generator;
+
+        NdjsonRowWriter(Writer writer) throws IOException {
+            this.writer = writer;
+            this.generator = objectMapper.getFactory().createGenerator(writer);
+            // The writer belongs to the response: the generator must neither close nor flush it per row
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            generator.writeStartObject();
+            for (int i = 1; i <= COLUMNS.length; i++) {
+                Object value = rs.getObject(i);
+                if (value instanceof Number number && !(value instanceof java.math.BigDecimal)) {
+                    generator.writeNumberField(COLUMNS[i - 1], number.longValue());
+                } else if (value instanceof java.math.BigDecimal decimal) {
+                    generator.writeNumberField(COLUMNS[i - 1], decimal);
+                } else if (value instanceof Boolean flag) {
+                    generator.writeBooleanField(COLUMNS[i - 1], flag);
+                } else {
+                    generator.writeStringField(COLUMNS[i - 1], text(rs, i));
+                }
+            }
+            generator.writeEndObject();
+            generator.flush();
+            writer.write('\n');
+        }
+    }
+}
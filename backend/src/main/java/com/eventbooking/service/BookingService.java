@@ -1,13 +1,20 @@
 package com.eventbooking.service;
 
+import com.eventbooking.dto.AdminBookingRow;
 import com.eventbooking.dto.Dtos;
+import com.eventbooking.dto.MyBookingRow;
 import com.eventbooking.model.Booking;
+import com.eventbooking.model.PendingPayment;
 
 import com.eventbooking.model.User;
 import com.eventbooking.repository.BookingRepository;
+import com.eventbooking.repository.PendingPaymentRepository;
 
 import com.eventbooking.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -18,6 +25,9 @@ import java.util.Objects;
 @Service
 public class BookingService {
 
+    private static final int MAX_ADMIN_PAGE_SIZE = 200;
+    private static final int MAX_MY_PAGE_SIZE = 100;
+
     @Autowired
     private BookingRepository bookingRepository;
 
@@ -30,6 +40,9 @@ public class BookingService {
     @Autowired
     private com.eventbooking.repository.SeatHoldRepository seatHoldRepository;
 
+    @Autowired
+    private PendingPaymentRepository pendingPaymentRepository;
+
     @Transactional
     public Booking bookSeats(Dtos.BookingRequest request) {
         validateSeatAvailability(request.getEventCategoryId(), request.getSeatIds(), request.getUserId());
@@ -103,7 +116,35 @@ public class BookingService {
         // Clear existing hold for this user before saving confirmed booking
         seatHoldRepository.deleteByUserIdAndEventCategoryId(user.getId(), category.getId());
 
-        return bookingRepository.save(booking);
+        Booking saved = bookingRepository.save(booking);
+        bookingCounters.bookingCreated(saved);
+        salesRollupService.bookingCreated(saved);
+        return saved;
+    }
+
+    /**
+     * Transactional half of payment finalization: books every request for a
+     * verified payment and marks the pending payment BOOKED in the same commit.
+     */
+    @Transactional
+    public void confirmPaidBookings(String referenceId, List<Dtos.BookingRequest> requests) {
+        int marked = pendingPaymentRepository.transition(referenceId, PendingPayment.STATUS_VERIFIED,
+                PendingPayment.STATUS_BOOKED, java.time.LocalDateTime.now());
+        if (marked == 0) {
+            throw new IllegalStateException("Payment " + referenceId + " is no longer awaiting booking");
+        }
+        for (Dtos.BookingRequest br : requests) {
+            br.setPaymentId(referenceId); // Link reference for idempotency and tracking
+            bookSeats(br);
+        }
+        // Notify the payment page only if the bookings commit
+        outboxService.paymentUpdate(referenceId, "SUCCESS", null);
+    }
+
+    /** Frees the seat holds taken for a payment that was never completed. */
+    @Transactional
+    public void releaseHoldsForPayment(String referenceId) {
+        seatHoldRepository.deleteByReferenceId(referenceId);
     }
 
     @Transactional
@@ -178,28 +219,117 @@ public class BookingService {
         return bookingRepository.findByUser_Id(userId);
     }
 
+    /**
+     * A page of the user's bookings, newest first, as flat rows. The cursor
+     * is the (bookingTime, id) of the last row already seen, so every page is
+     * one index range scan however deep the user pages.
+     */
+    public Dtos.CursorPage<MyBookingRow> getUserBookingSummaries(UUID userId, String cursor, int limit) {
+        int size = Math.min(Math.max(1, limit), MAX_MY_PAGE_SIZE);
+        PageRequest page = PageRequest.of(0, size + 1);
+        List<MyBookingRow> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = bookingRepository.findMyRows(userId, page);
+        } else {
+            String decoded;
+            try {
+                decoded = new String(java.util.Base64.getUrlDecoder().decode(cursor),
+                        java.nio.charset.StandardCharsets.UTF_8);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            int split = decoded.indexOf('|');
+            if (split < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            try {
+                rows = bookingRepository.findMyRowsBefore(userId,
+                        java.time.LocalDateTime.parse(decoded.substring(0, split)),
+                        UUID.fromString(decoded.substring(split + 1)), page);
+            } catch (java.time.format.DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+        String nextCursor = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            MyBookingRow last = rows.get(size - 1);
+            nextCursor = java.util.Base64.getUrlEncoder().withoutPadding().encodeToString(
+                    (last.getBookingTime() + "|" + last.getId()).getBytes(java.nio.charset.StandardCharsets.UTF_8));
+        }
+        return new Dtos.CursorPage<>(rows, nextCursor);
+    }
+
     @Autowired
     private com.eventbooking.repository.EventRepository eventRepository;
 
-    public List<Booking> getAllBookings() {
-        return bookingRepository.findAll();
+    public Page<AdminBookingRow> getAllBookings(String status, UUID eventId, int page, int size) {
+        PageRequest pageRequest = PageRequest.of(Math.max(0, page), Math.min(Math.max(1, size), MAX_ADMIN_PAGE_SIZE),
+                Sort.by(Sort.Direction.DESC, "bookingTime", "id"));
+        return eventId == null ? bookingRepository.findAdminRows(status, pageRequest)
+                : bookingRepository.findAdminRowsForEvent(status, eventId, pageRequest);
     }
 
+    @Autowired
+    private BookingCounters bookingCounters;
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private TicketTokenService ticketTokenService;
+
     public Dtos.DashboardStats getDashboardStats() {
         long totalEvents = eventRepository.count();
-        List<Booking> allBookings = bookingRepository.findAll();
-        long totalBookings = allBookings.size();
-        long totalSeatsSold = allBookings.stream()
-                .mapToLong(Booking::getSeatsBooked)
-                .sum();
+        BookingCounters.Snapshot totals = bookingCounters.system();
+        return new Dtos.DashboardStats(totalEvents, totals.bookings(), totals.seats(), totals.cancelled(),
+                totals.revenue(), totals.checkIns());
+    }
 
-        return new Dtos.DashboardStats(totalEvents, totalBookings, totalSeatsSold);
+    public Dtos.EventStats getEventStats(UUID eventId) {
+        BookingCounters.Snapshot totals = bookingCounters.forEvent(eventId);
+        return new Dtos.EventStats(eventId, totals.bookings(), totals.seats(), totals.cancelled(), totals.revenue(),
+                totals.checkIns());
     }
 
+    @Transactional
     public void emailTicket(UUID bookingId) {
-        Booking booking = bookingRepository.findById(Objects.requireNonNull(bookingId))
-                .orElseThrow(() -> new RuntimeException("Booking not found"));
-        emailService.sendTicketEmail(booking.getUser().getEmail(), booking);
+        if (!bookingRepository.existsById(Objects.requireNonNull(bookingId))) {
+            throw new RuntimeException("Booking not found");
+        }
+        outboxService.ticketEmail(bookingId);
+    }
+
+    /** Short stable digest of a ticket token, e.g. for HTTP validators. */
+    public String ticketTokenDigest(String ticketToken) {
+        return ticketTokenService.digest(ticketToken);
+    }
+
+    public java.util.Optional<com.eventbooking.dto.TicketFacts> getTicketFacts(UUID bookingId) {
+        return bookingRepository.findTicketFacts(Objects.requireNonNull(bookingId));
+    }
+
+    public String issueTicketToken(com.eventbooking.dto.TicketFacts facts) {
+        return ticketTokenService.issue(facts);
+    }
+
+    public byte[] getTicketQr(String ticketToken) {
+        return qrCodeService.ticketPng(ticketToken);
+    }
+
+    /** Online scan of a signed ticket token: checked like a gate would, then checked in by booking id. */
+    @Transactional
+    public Dtos.ScanResponse scanTicketToken(String token) {
+        TicketTokenService.Claims claims;
+        try {
+            claims = ticketTokenService.verify(token);
+        } catch (IllegalArgumentException e) {
+            return new Dtos.ScanResponse("INVALID", e.getMessage());
+        }
+        if (claims.expiredAt(java.time.Instant.now())) {
+            return new Dtos.ScanResponse("INVALID", "This ticket has expired.");
+        }
+        return scanTicket(claims.bookingId());
     }
 
     @Transactional
@@ -221,6 +351,7 @@ public class BookingService {
         booking.setCheckedIn(true);
         booking.setCheckedInAt(java.time.LocalDateTime.now());
         bookingRepository.save(booking);
+        bookingCounters.checkedIn(booking);
 
         return new Dtos.ScanResponse(
                 "VALID",
@@ -254,9 +385,13 @@ public class BookingService {
     public void resetCheckIn(UUID bookingId) {
         Booking booking = bookingRepository.findById(Objects.requireNonNull(bookingId))
                 .orElseThrow(() -> new RuntimeException("Booking not found"));
+        boolean wasCheckedIn = booking.isCheckedIn();
         booking.setCheckedIn(false);
         booking.setCheckedInAt(null);
         bookingRepository.save(booking);
+        if (wasCheckedIn) {
+            bookingCounters.checkInReset(booking);
+        }
     }
 
     public void validateSeatAvailability(UUID categoryId, java.util.List<String> requestedSeats, UUID currentUserId) {
@@ -329,5 +464,8 @@ public class BookingService {
     }
 
     @Autowired
-    private EmailService emailService;
+    private OutboxService outboxService;
+
+    @Autowired
+    private QrCodeService qrCodeService;
 }
@@ -0,0 +1,69 @@
+package com.eventbooking.service;
+
+import com.eventbooking.model.EmailOtp;
+import com.eventbooking.repository.EmailOtpRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * {@link OtpStore} on the {@code email_otp} table, for deployments with more
+ * than one node. Attempts are counted with a conditional UPDATE so
+ * concurrent guesses on different nodes cannot exceed the limit.
+ */
+@Component
+@ConditionalOnProperty(name = "otp.store", havingValue = "database")
+public class DatabaseOtpStore implements OtpStore {
+
+    @Autowired
+    private EmailOtpRepository emailOtpRepository;
+
+    @Override
+    @Transactional
+    public void save(String email, String purpose, String otp, Duration ttl) {
+        emailOtpRepository.deleteByEmailAndPurpose(email, purpose);
+        EmailOtp emailOtp = new EmailOtp();
+        emailOtp.setEmail(email);
+        emailOtp.setOtp(otp);
+        emailOtp.setPurpose(purpose);
+        emailOtp.setExpiresAt(LocalDateTime.now().plus(ttl));
+        emailOtpRepository.save(emailOtp);
+    }
+
+    @Override
+    @Transactional
+    public Result verify(String email, String purpose, String otp, int maxAttempts) {
+        Optional<EmailOtp> latest = emailOtpRepository.findFirstByEmailAndPurposeOrderByCreatedAtDesc(email, purpose);
+        if (latest.isEmpty() || otp == null) {
+            return Result.INVALID;
+        }
+        EmailOtp emailOtp = latest.get();
+        if (LocalDateTime.now().isAfter(emailOtp.getExpiresAt())) {
+            return Result.EXPIRED;
+        }
+        if (emailOtpRepository.recordAttempt(emailOtp.getId(), maxAttempts) == 0) {
+            return Result.LOCKED;
+        }
+        return MessageDigest.isEqual(emailOtp.getOtp().getBytes(StandardCharsets.UTF_8),
+                otp.getBytes(StandardCharsets.UTF_8)) ? Result.VALID : Result.INVALID;
+    }
+
+    @Override
+    @Transactional
+    public void remove(String email, String purpose) {
+        emailOtpRepository.deleteByEmailAndPurpose(email, purpose);
+    }
+
+    @Override
+    @Transactional
+    public int purgeExpired() {
+        return emailOtpRepository.deleteExpired(LocalDateTime.now());
+    }
+}
@@ -0,0 +1,597 @@
+package com.eventbooking.service;
+
+import com.eventbooking.model.EmailJob;
+import com.eventbooking.repository.EmailJobRepository;
+import com.eventbooking.util.TokenBucket;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Persistent email queue. {@link #enqueue} only inserts a row; workers claim
+ * due rows in batches and talk to SMTP, retrying with exponential backoff and
+ * dead-lettering a job after {@code email.queue.max-attempts}.
+ * <p>
+ * Jobs are split into delivery classes ({@link EmailJob#priorityOf}), each
+ * drawing on its own token bucket so the classes together stay inside the
+ * provider's sending quota. Transactional and bulk mail share the worker pool
+ * by weight, with unused share going to whichever class still has work.
+ * <p>
+ * OTP mail is never written to {@code email_jobs}: the body contains the code.
+ * It waits in a bounded in-memory queue drained by a dedicated sender thread
+ * that is woken on commit, so a login code never queues behind a bulk run.
+ * Retries stay in memory too; OTP mail still queued at shutdown is lost, and
+ * the user asks for a new code, which would have expired by then anyway.
+ */
+@Service
+public class EmailDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailDispatcher.class);
+
+    public static final String TICKET_QR_CID = "ticket-qr";
+
+    /** A class served by the shared worker pool. */
+    private record Lane(String priority, int weight, TokenBucket bucket) {
+    }
+
+    /** An OTP mail held in memory, due at its {@code nextAttemptAt}. */
+    private record PendingOtp(EmailJob job) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(Duration.between(LocalDateTime.now(), job.getNextAttemptAt()));
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return job.getNextAttemptAt().compareTo(((PendingOtp) other).job().getNextAttemptAt());
+        }
+    }
+
+    @Autowired
+    private EmailJobRepository emailJobRepository;
+
+    @Autowired
+    private JavaMailSender mailSender;
+
+    @Autowired
+    private QrCodeService qrCodeService;
+
+    @Autowired
+    private TicketTokenService ticketTokenService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${spring.mail.username}")
+    private String senderEmail;
+
+    @Value("${email.queue.workers:4}")
+    private int workerCount;
+
+    @Value("${email.queue.batch-size:20}")
+    private int batchSize;
+
+    @Value("${email.smtp.max-messages-per-connection:50}")
+    private int maxMessagesPerConnection;
+
+    @Value("${email.queue.max-attempts:6}")
+    private int maxAttempts;
+
+    @Value("${email.queue.lease-ms:120000}")
+    private long leaseMs;
+
+    @Value("${email.queue.retention-hours:72}")
+    private long retentionHours;
+
+    @Value("${email.queue.dead-retention-hours:336}")
+    private long deadRetentionHours;
+
+    @Value("${email.otp.queue-capacity:10000}")
+    private int otpQueueCapacity;
+
+    @Value("${email.rate.otp.per-second:10}")
+    private double otpRate;
+
+    @Value("${email.rate.otp.burst:20}")
+    private double otpBurst;
+
+    @Value("${email.rate.transactional.per-second:8}")
+    private double transactionalRate;
+
+    @Value("${email.rate.transactional.burst:40}")
+    private double transactionalBurst;
+
+    @Value("${email.rate.bulk.per-second:4}")
+    private double bulkRate;
+
+    @Value("${email.rate.bulk.burst:40}")
+    private double bulkBurst;
+
+    @Value("${email.queue.weight.transactional:3}")
+    private int transactionalWeight;
+
+    @Value("${email.queue.weight.bulk:1}")
+    private int bulkWeight;
+
+    private ThreadPoolExecutor workers;
+    private TokenBucket otpBucket;
+    private final DelayQueue<PendingOtp> otpQueue = new DelayQueue<>();
+    private List<Lane> lanes;
+    private final AtomicInteger busyWorkers = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicBoolean polling = new AtomicBoolean(false);
+    private final AtomicBoolean wakePending = new AtomicBoolean(false);
+    private final AtomicBoolean otpWakePending = new AtomicBoolean(false);
+    private final AtomicBoolean throttledWakePending = new AtomicBoolean(false);
+    private final ScheduledExecutorService wakeUpExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "email-dispatcher");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ScheduledExecutorService otpSender = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "email-otp");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @PostConstruct
+    public void init() {
+        batchSize = Math.max(1, batchSize);
+        maxMessagesPerConnection = Math.max(1, maxMessagesPerConnection);
+        int size = Math.max(1, workerCount);
+        AtomicInteger threadCount = new AtomicInteger();
+        workers = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(size),
+                r -> {
+                    Thread t = new Thread(r, "email-worker-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        otpBucket = new TokenBucket(otpBurst, otpRate);
+        lanes = List.of(
+                new Lane(EmailJob.PRIORITY_TRANSACTIONAL, Math.max(1, transactionalWeight),
+                        new TokenBucket(transactionalBurst, transactionalRate)),
+                new Lane(EmailJob.PRIORITY_BULK, Math.max(1, bulkWeight), new TokenBucket(bulkBurst, bulkRate)));
+
+        Gauge.builder("email.queue.depth", otpQueue, DelayQueue::size)
+                .tag("priority", EmailJob.PRIORITY_OTP)
+                .description("Emails waiting to be sent")
+                .register(meterRegistry);
+        for (String priority : List.of(EmailJob.PRIORITY_TRANSACTIONAL, EmailJob.PRIORITY_BULK)) {
+            Gauge.builder("email.queue.depth", emailJobRepository,
+                    repo -> repo.countByStatusAndPriority(EmailJob.STATUS_PENDING, priority))
+                    .tag("priority", priority)
+                    .description("Emails waiting to be sent")
+                    .register(meterRegistry);
+        }
+        Gauge.builder("email.queue.in_flight", inFlight, AtomicInteger::get)
+                .description("Emails currently being sent")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        otpSender.shutdown();
+        if (!otpQueue.isEmpty()) {
+            logger.warn("Discarding {} unsent OTP emails on shutdown", otpQueue.size());
+        }
+        wakeUpExecutor.shutdown();
+        workers.shutdown();
+    }
+
+    /**
+     * Queues a rendered email. Inside a transaction the row commits (and the
+     * workers are nudged) together with the caller's changes; OTP mail is
+     * handed to the OTP sender on commit instead of being stored.
+     *
+     * @throws IllegalStateException if the OTP queue is full
+     */
+    @Transactional
+    public void enqueue(String kind, String recipient, String subject, String htmlBody) {
+        enqueue(kind, recipient, subject, htmlBody, null);
+    }
+
+    /** As {@link #enqueue(String, String, String, String)}, attaching the booking's QR code as {@code cid:ticket-qr}. */
+    @Transactional
+    public void enqueue(String kind, String recipient, String subject, String htmlBody, UUID qrBookingId) {
+        EmailJob job = new EmailJob();
+        job.setKind(kind);
+        job.setPriority(EmailJob.priorityOf(kind));
+        job.setRecipient(recipient);
+        job.setSubject(subject);
+        job.setHtmlBody(htmlBody);
+        job.setQrBookingId(qrBookingId);
+        LocalDateTime now = LocalDateTime.now();
+        job.setCreatedAt(now);
+        job.setNextAttemptAt(now);
+
+        boolean otp = EmailJob.PRIORITY_OTP.equals(job.getPriority());
+        if (otp) {
+            // Checked up front so the caller can report it; the mail itself only goes out if the caller commits
+            if (otpQueue.size() >= otpQueueCapacity) {
+                meterRegistry.counter("email.jobs", "kind", kind, "outcome", "rejected").increment();
+                throw new IllegalStateException("OTP email queue is full");
+            }
+        } else {
+            emailJobRepository.save(job);
+        }
+        meterRegistry.counter("email.jobs", "kind", kind, "outcome", "queued").increment();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    if (otp) {
+                        queueOtp(job);
+                    } else {
+                        wakeUp();
+                    }
+                }
+            });
+        } else if (otp) {
+            queueOtp(job);
+        } else {
+            wakeUp();
+        }
+    }
+
+    private void queueOtp(EmailJob job) {
+        otpQueue.add(new PendingOtp(job));
+        wakeOtpSender(0);
+    }
+
+    /** Coalesces wake-ups: a transaction that queued many mails triggers one poll, not one per mail. */
+    public void wakeUp() {
+        if (!wakePending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            wakeUpExecutor.execute(() -> {
+                wakePending.set(false);
+                poll();
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down; rows stay PENDING for the next start-up
+            wakePending.set(false);
+        }
+    }
+
+    /** Coalesces wake-ups: at most one OTP drain is queued at a time. */
+    private void wakeOtpSender(long delayNanos) {
+        if (!otpWakePending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            otpSender.schedule(this::drainOtp, delayNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            otpWakePending.set(false);
+        }
+    }
+
+    /**
+     * Runs on the dedicated OTP thread: takes as many due OTP mails as the OTP
+     * bucket allows and sends them straight away over one connection, until
+     * nothing is due or the class is throttled. Failed mails go back into the
+     * queue with their backoff until they run out of attempts.
+     */
+    private void drainOtp() {
+        otpWakePending.set(false);
+        try {
+            while (true) {
+                PendingOtp head = otpQueue.peek();
+                if (head == null) {
+                    return;
+                }
+                long delayNanos = head.getDelay(TimeUnit.NANOSECONDS);
+                if (delayNanos > 0) {
+                    wakeOtpSender(delayNanos);
+                    return;
+                }
+                int permits = otpBucket.tryAcquireUpTo(maxMessagesPerConnection);
+                if (permits == 0) {
+                    meterRegistry.counter("email.rate_limited", "priority", EmailJob.PRIORITY_OTP).increment();
+                    wakeOtpSender(otpBucket.nanosUntilAvailable(1));
+                    return;
+                }
+                List<PendingOtp> due = new ArrayList<>(permits);
+                otpQueue.drainTo(due, permits);
+                otpBucket.release(permits - due.size());
+                if (due.isEmpty()) {
+                    return;
+                }
+                List<EmailJob> jobs = new ArrayList<>(due.size());
+                for (PendingOtp pending : due) {
+                    jobs.add(pending.job());
+                }
+                deliver(jobs);
+                for (EmailJob job : jobs) {
+                    if (EmailJob.STATUS_PENDING.equals(job.getStatus())) {
+                        otpQueue.add(new PendingOtp(job));
+                    }
+                }
+            }
+        } catch (Exception e) {
+            logger.error("OTP email drain failed", e);
+        }
+    }
+
+    /**
+     * Hands due transactional and bulk jobs to idle workers in batches of up
+     * to {@code email.queue.batch-size}; never claims more than the idle
+     * workers can start. The idle capacity is divided between the classes by
+     * weight, and each class is capped by its token bucket.
+     */
+    @Scheduled(fixedDelayString = "${email.queue.poll-interval-ms:2000}")
+    public void poll() {
+        // Safety net for the OTP sender: it normally re-arms itself for the next due retry
+        wakeOtpSender(0);
+        if (!polling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int idleWorkers = workers.getMaximumPoolSize() - busyWorkers.get();
+            if (idleWorkers <= 0) {
+                return;
+            }
+            int capacity = idleWorkers * batchSize;
+            LocalDateTime now = LocalDateTime.now();
+            List<List<UUID>> due = new ArrayList<>(lanes.size());
+            for (Lane lane : lanes) {
+                due.add(emailJobRepository.findDueIds(lane.priority(), now, PageRequest.of(0, capacity)));
+            }
+
+            int[] shares = fairShares(capacity, due);
+            List<UUID> claimed = new ArrayList<>();
+            boolean throttled = false;
+            for (int i = 0; i < lanes.size(); i++) {
+                if (shares[i] == 0) {
+                    continue;
+                }
+                Lane lane = lanes.get(i);
+                int permits = lane.bucket().tryAcquireUpTo(shares[i]);
+                if (permits < shares[i]) {
+                    throttled = true;
+                    meterRegistry.counter("email.rate_limited", "priority", lane.priority()).increment();
+                }
+                List<UUID> laneClaimed = claim(due.get(i).subList(0, permits));
+                lane.bucket().release(permits - laneClaimed.size());
+                claimed.addAll(laneClaimed);
+            }
+            if (throttled) {
+                scheduleThrottledWakeUp();
+            }
+
+            // Spread the claimed jobs evenly so a small backlog still uses every idle worker
+            int perWorker = Math.max(1, (claimed.size() + idleWorkers - 1) / idleWorkers);
+            for (int from = 0; from < claimed.size(); from += perWorker) {
+                List<UUID> batch = claimed.subList(from, Math.min(claimed.size(), from + perWorker));
+                busyWorkers.incrementAndGet();
+                inFlight.addAndGet(batch.size());
+                try {
+                    workers.execute(() -> process(batch));
+                } catch (RejectedExecutionException e) {
+                    busyWorkers.decrementAndGet();
+                    inFlight.addAndGet(-batch.size());
+                    // Lease expiry hands the rows back to the queue
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Email queue poll failed", e);
+        } finally {
+            polling.set(false);
+        }
+    }
+
+    /**
+     * Weighted split of {@code capacity} between the lanes: each lane first
+     * gets up to its weighted share of what it has due, then whatever is left
+     * goes to lanes that still have work, so no capacity idles while either
+     * class has a backlog.
+     */
+    private int[] fairShares(int capacity, List<List<UUID>> due) {
+        int totalWeight = 0;
+        for (Lane lane : lanes) {
+            totalWeight += lane.weight();
+        }
+        int[] shares = new int[lanes.size()];
+        int remaining = capacity;
+        for (int i = 0; i < lanes.size(); i++) {
+            int fair = Math.max(1, capacity * lanes.get(i).weight() / totalWeight);
+            shares[i] = Math.min(Math.min(fair, due.get(i).size()), remaining);
+            remaining -= shares[i];
+        }
+        for (int i = 0; i < lanes.size() && remaining > 0; i++) {
+            int extra = Math.min(remaining, due.get(i).size() - shares[i]);
+            shares[i] += extra;
+            remaining -= extra;
+        }
+        return shares;
+    }
+
+    /** Re-polls once the throttled buckets have refilled instead of waiting for the poll interval. */
+    private void scheduleThrottledWakeUp() {
+        if (!throttledWakePending.compareAndSet(false, true)) {
+            return;
+        }
+        long delayNanos = Long.MAX_VALUE;
+        for (Lane lane : lanes) {
+            delayNanos = Math.min(delayNanos, lane.bucket().nanosUntilAvailable(1));
+        }
+        try {
+            wakeUpExecutor.schedule(() -> {
+                throttledWakePending.set(false);
+                poll();
+            }, Math.max(delayNanos, TimeUnit.MILLISECONDS.toNanos(50)), TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            throttledWakePending.set(false);
+        }
+    }
+
+    private List<UUID> claim(List<UUID> ids) {
+        List<UUID> claimed = new ArrayList<>(ids.size());
+        for (UUID id : ids) {
+            if (emailJobRepository.claim(id, LocalDateTime.now()) == 1) {
+                claimed.add(id);
+            }
+        }
+        return claimed;
+    }
+
+    @Scheduled(fixedDelayString = "${email.queue.maintenance-interval-ms:300000}")
+    public void maintenance() {
+        LocalDateTime now = LocalDateTime.now();
+        int released = emailJobRepository.releaseStale(now.minusNanos(leaseMs * 1_000_000L));
+        if (released > 0) {
+            logger.warn("Released {} stale email jobs for redelivery", released);
+        }
+        emailJobRepository.deleteSentBefore(now.minusHours(retentionHours));
+        emailJobRepository.deleteDeadBefore(now.minusHours(deadRetentionHours));
+    }
+
+    private void process(List<UUID> ids) {
+        try {
+            List<EmailJob> jobs = emailJobRepository.findAllById(ids);
+            for (int from = 0; from < jobs.size(); from += maxMessagesPerConnection) {
+                List<EmailJob> chunk = jobs.subList(from, Math.min(jobs.size(), from + maxMessagesPerConnection));
+                deliver(chunk);
+                emailJobRepository.saveAll(chunk);
+            }
+        } catch (Exception e) {
+            logger.error("Email batch failed; jobs return to the queue after the lease expires", e);
+        } finally {
+            inFlight.addAndGet(-ids.size());
+            busyWorkers.decrementAndGet();
+            // A worker just freed up; pull the next batch without waiting for the poll interval
+            wakeUp();
+        }
+    }
+
+    /**
+     * Sends a chunk over a single SMTP connection: JavaMailSender opens one
+     * transport per {@code send(MimeMessage...)} call, so STARTTLS and AUTH
+     * are paid once per chunk instead of once per message. Per-message
+     * failures are reported back through {@link MailSendException}. Updates
+     * the jobs' status; saving them is up to the caller.
+     */
+    private void deliver(List<EmailJob> jobs) {
+        Map<EmailJob, MimeMessage> messages = new IdentityHashMap<>();
+        Map<Object, Exception> failures = new IdentityHashMap<>();
+        for (EmailJob job : jobs) {
+            try {
+                messages.put(job, buildMessage(job));
+            } catch (Exception e) {
+                failures.put(job, e);
+            }
+        }
+
+        if (!messages.isEmpty()) {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String outcome = "sent";
+            try {
+                mailSender.send(messages.values().toArray(new MimeMessage[0]));
+            } catch (MailSendException e) {
+                outcome = "partial";
+                failures.putAll(e.getFailedMessages());
+            } catch (Exception e) {
+                // Connect or authentication failure: nothing in this chunk went out
+                outcome = "failed";
+                for (MimeMessage message : messages.values()) {
+                    failures.put(message, e);
+                }
+            }
+            sample.stop(meterRegistry.timer("email.send.duration", "outcome", outcome));
+            meterRegistry.summary("email.send.batch.size").record(messages.size());
+        }
+
+        for (EmailJob job : jobs) {
+            MimeMessage message = messages.get(job);
+            record(job, message != null ? failures.get(message) : failures.get(job));
+        }
+    }
+
+    private void record(EmailJob job, Exception failure) {
+        if (failure == null) {
+            job.setStatus(EmailJob.STATUS_SENT);
+            job.setSentAt(LocalDateTime.now());
+            job.setLastError(null);
+            meterRegistry.counter("email.jobs", "kind", job.getKind(), "outcome", "sent").increment();
+            meterRegistry.timer("email.delivery.latency", "priority", job.getPriority())
+                    .record(Duration.between(job.getCreatedAt(), job.getSentAt()));
+        } else {
+            int attempts = job.getAttempts() + 1;
+            job.setAttempts(attempts);
+            job.setLastError(failure.getMessage());
+            if (attempts >= maxAttempts) {
+                job.setStatus(EmailJob.STATUS_DEAD);
+                meterRegistry.counter("email.jobs", "kind", job.getKind(), "outcome", "dead").increment();
+                logger.error("Email job {} ({} to {}) dead after {} attempts", idOf(job), job.getKind(),
+                        job.getRecipient(), attempts, failure);
+            } else {
+                job.setStatus(EmailJob.STATUS_PENDING);
+                // Exponential backoff: 4s, 8s, 16s ... capped at 10 minutes
+                long delaySeconds = Math.min(600, 2L << attempts);
+                job.setNextAttemptAt(LocalDateTime.now().plusSeconds(delaySeconds));
+                meterRegistry.counter("email.jobs", "kind", job.getKind(), "outcome", "retry").increment();
+                logger.warn("Email job {} ({}) failed (attempt {}), retrying in {}s: {}", idOf(job), job.getKind(),
+                        attempts, delaySeconds, failure.getMessage());
+            }
+        }
+        job.setLockedAt(null);
+    }
+
+    private static Object idOf(EmailJob job) {
+        return job.getId() != null ? job.getId() : "(in memory)";
+    }
+
+    private MimeMessage buildMessage(EmailJob job) throws Exception {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        helper.setFrom(senderEmail);
+        helper.setTo(job.getRecipient());
+        helper.setSubject(job.getSubject());
+        helper.setText(job.getHtmlBody(), true);
+        if (job.getQrBookingId() != null) {
+            // Generated at send time (and cached) rather than stored with the job
+            String content = ticketTokenService.tokenFor(job.getQrBookingId())
+                    .orElse(job.getQrBookingId().toString());
+            helper.addInline(TICKET_QR_CID, new ByteArrayResource(qrCodeService.ticketPng(content)), "image/png");
+        }
+        return message;
+    }
+}
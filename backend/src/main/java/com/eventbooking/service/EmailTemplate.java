@@ -0,0 +1,89 @@
+package com.eventbooking.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An email template compiled once into alternating literal segments and
+ * parameter slots. {@code {{name}}} placeholders are resolved to positional
+ * slots at compile time, so rendering is a straight series of appends with no
+ * format-string parsing.
+ */
+final class EmailTemplate {
+
+    private final String name;
+    private final String[] literals; // literals[i] precedes slot i; the last one closes the template
+    private final int[] slots;
+    private final int parameterCount;
+    private final int literalLength;
+
+    private EmailTemplate(String name, String[] literals, int[] slots, int parameterCount) {
+        this.name = name;
+        this.literals = literals;
+        this.slots = slots;
+        this.parameterCount = parameterCount;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Compiles {@code source}; {@code parameters} fixes the order in which
+     * values are passed to {@link #renderTo}. Unknown placeholders fail here,
+     * at start-up, rather than on the first send.
+     */
+    static EmailTemplate compile(String name, String source, String... parameters) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        int pos = 0;
+        while (true) {
+            int open = source.indexOf("{{", pos);
+            if (open < 0) {
+                literals.add(source.substring(pos));
+                break;
+            }
+            int close = source.indexOf("}}", open + 2);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder in email template " + name);
+            }
+            String key = source.substring(open + 2, close).trim();
+            int slot = indexOf(parameters, key);
+            if (slot < 0) {
+                throw new IllegalArgumentException("Unknown placeholder {{" + key + "}} in email template " + name);
+            }
+            literals.add(source.substring(pos, open));
+            slots.add(slot);
+            pos = close + 2;
+        }
+        return new EmailTemplate(name, literals.toArray(new String[0]),
+                slots.stream().mapToInt(Integer::intValue).toArray(), parameters.length);
+    }
+
+    int getLiteralLength() {
+        return literalLength;
+    }
+
+    void renderTo(StringBuilder out, String... values) {
+        if (values.length != parameterCount) {
+            throw new IllegalArgumentException("Email template " + name + " expects " + parameterCount
+                    + " values, got " + values.length);
+        }
+        for (int i = 0; i < slots.length; i++) {
+            out.append(literals[i]);
+            String value = values[slots[i]];
+            out.append(value == null ? "null" : value);
+        }
+        out.append(literals[literals.length - 1]);
+    }
+
+    private static int indexOf(String[] parameters, String key) {
+        for (int i = 0; i < parameters.length; i++) {
+            if (parameters[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,139 @@
+package com.eventbooking.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Loads the email templates under {@code classpath:email-templates/} once,
+ * compiles them, and renders into a per-thread reusable buffer. Event-specific
+ * fragments (image, title, venue, date) are cached per event so a bulk
+ * mailing to one event's attendees renders that block once.
+ */
+@Component
+public class EmailTemplateEngine {
+
+    public static final String OTP = "otp";
+    public static final String TICKET = "ticket";
+    public static final String TICKET_EVENT = "ticket-event";
+    public static final String CANCELLATION = "cancellation";
+    public static final String CANCELLATION_EVENT = "cancellation-event";
+    public static final String REMINDER = "reminder";
+
+    // Buffers that grew past this are dropped instead of being pinned to the thread forever
+    private static final int MAX_RETAINED_BUFFER = 256 * 1024;
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(16 * 1024));
+
+    private static final class Fragment {
+        final String[] values;
+        final String html;
+
+        Fragment(String[] values, String html) {
+            this.values = values;
+            this.html = html;
+        }
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${email.template.fragment-cache-size:512}")
+    private int fragmentCacheSize;
+
+    private final Map<String, EmailTemplate> templates = new HashMap<>();
+    private Map<String, Fragment> fragments;
+    private Counter fragmentHits;
+    private Counter fragmentMisses;
+
+    @PostConstruct
+    public void init() {
+        register(OTP, "title", "body", "otp");
+        register(TICKET, "bookingId", "eventBlock", "categoryName", "seats", "subtotal", "fees", "total", "qrUrl");
+        register(TICKET_EVENT, "imageUrl", "eventName", "location", "eventDate");
+        register(CANCELLATION, "eventBlock", "bookingId", "reason", "refund");
+        register(CANCELLATION_EVENT, "eventName", "eventDate");
+        register(REMINDER, "name", "bookingId", "eventBlock", "categoryName", "seats", "seatNumbers");
+
+        int capacity = Math.max(1, fragmentCacheSize);
+        fragments = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Fragment> eldest) {
+                return size() > capacity;
+            }
+        };
+        fragmentHits = meterRegistry.counter("email.template.fragments", "result", "hit");
+        fragmentMisses = meterRegistry.counter("email.template.fragments", "result", "miss");
+    }
+
+    /** Renders a full template; {@code values} follow the parameter order it was registered with. */
+    public String render(String template, String... values) {
+        EmailTemplate compiled = template(template);
+        StringBuilder out = BUFFER.get();
+        out.setLength(0);
+        out.ensureCapacity(compiled.getLiteralLength() + 1024);
+        try {
+            compiled.renderTo(out, values);
+            return out.toString();
+        } finally {
+            if (out.capacity() > MAX_RETAINED_BUFFER) {
+                BUFFER.remove();
+            }
+        }
+    }
+
+    /**
+     * Renders an event fragment, reusing the cached copy while the event's
+     * rendered fields are unchanged (an edited event simply re-renders).
+     */
+    public String eventFragment(String template, UUID eventId, String... values) {
+        String key = template + ':' + eventId;
+        synchronized (this) {
+            Fragment cached = fragments.get(key);
+            if (cached != null && Arrays.equals(cached.values, values)) {
+                fragmentHits.increment();
+                return cached.html;
+            }
+        }
+        fragmentMisses.increment();
+        StringBuilder out = new StringBuilder(template(template).getLiteralLength() + 256);
+        template(template).renderTo(out, values);
+        String html = out.toString();
+        synchronized (this) {
+            fragments.put(key, new Fragment(values.clone(), html));
+        }
+        return html;
+    }
+
+    private EmailTemplate template(String name) {
+        EmailTemplate template = templates.get(name);
+        if (template == null) {
+            throw new IllegalArgumentException("Unknown email template: " + name);
+        }
+        return template;
+    }
+
+    private void register(String name, String... parameters) {
+        ClassPathResource resource = new ClassPathResource("email-templates/" + name + ".html");
+        try (InputStream in = resource.getInputStream()) {
+            String source = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            templates.put(name, EmailTemplate.compile(name, source, parameters));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load email template " + name, e);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.eventbooking.service;
+
+import com.eventbooking.dto.ReminderRecipient;
+import com.eventbooking.model.Event;
+import com.eventbooking.repository.BookingRepository;
+import com.eventbooking.util.TokenBucket;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sends the daily event reminder wave. For every event starting within
+ * {@code email.reminder.lookahead-hours}, the confirmed bookings of users who
+ * kept reminders enabled are read in keyset pages and queued as BULK mail,
+ * one short transaction per page that also stamps {@code reminder_sent_at}.
+ * <p>
+ * The wave runs on its own thread and stays out of the way of live traffic:
+ * it uses one connection at a time, is paced by a token bucket, and backs off
+ * while the connection pool is busy.
+ */
+@Service
+public class EventReminderScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventReminderScheduler.class);
+
+    private static final UUID FIRST_KEY = new UUID(0L, 0L);
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${email.reminder.lookahead-hours:24}")
+    private long lookaheadHours;
+
+    @Value("${email.reminder.page-size:200}")
+    private int pageSize;
+
+    @Value("${email.reminder.rate-per-second:20}")
+    private double ratePerSecond;
+
+    @Value("${email.reminder.max-pool-usage:0.5}")
+    private double maxPoolUsage;
+
+    @Value("${email.reminder.busy-backoff-ms:500}")
+    private long busyBackoffMs;
+
+    private TransactionTemplate transactionTemplate;
+    private TokenBucket enqueueBucket;
+    private HikariDataSource hikari;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "event-reminders");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @PostConstruct
+    public void init() {
+        pageSize = Math.max(1, pageSize);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        // A whole page is acquired before its transaction opens, so the bucket must hold one
+        enqueueBucket = new TokenBucket(Math.max(pageSize, ratePerSecond), ratePerSecond);
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                hikari = dataSource.unwrap(HikariDataSource.class);
+            }
+        } catch (SQLException e) {
+            logger.warn("Connection pool metrics unavailable; reminders will not back off under load");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+    }
+
+    /** Starts a wave in the background unless one is still running. */
+    @Scheduled(cron = "${email.reminder.cron:0 0 9 * * *}")
+    public void trigger() {
+        if (!running.compareAndSet(false, true)) {
+            logger.info("Event reminder wave still running; skipping this trigger");
+            return;
+        }
+        try {
+            runner.execute(() -> {
+                try {
+                    runWave();
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+        }
+    }
+
+    private void runWave() {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        LocalDateTime now = LocalDateTime.now();
+        int queued = 0;
+        try {
+            List<Event> events = bookingRepository.findEventsAwaitingReminders(now, now.plusHours(lookaheadHours));
+            for (Event event : events) {
+                queued += remindAttendees(event);
+            }
+            if (queued > 0) {
+                logger.info("Queued {} event reminders for {} events", queued, events.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.error("Event reminder wave failed after {} reminders; the rest go out on the next run", queued, e);
+        } finally {
+            sample.stop(meterRegistry.timer("email.reminder.wave.duration"));
+        }
+    }
+
+    private int remindAttendees(Event event) throws InterruptedException {
+        UUID after = FIRST_KEY;
+        int queued = 0;
+        while (true) {
+            awaitPoolHeadroom();
+            List<ReminderRecipient> page = bookingRepository.findReminderRecipients(event.getId(), after,
+                    PageRequest.of(0, pageSize));
+            if (page.isEmpty()) {
+                return queued;
+            }
+            while (!enqueueBucket.tryAcquire(page.size())) {
+                TimeUnit.NANOSECONDS.sleep(enqueueBucket.nanosUntilAvailable(page.size()));
+            }
+            awaitPoolHeadroom();
+
+            List<UUID> ids = new ArrayList<>(page.size());
+            for (ReminderRecipient recipient : page) {
+                ids.add(recipient.getBookingId());
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                emailService.sendEventReminders(event, page);
+                bookingRepository.markReminded(ids, LocalDateTime.now());
+            });
+            queued += page.size();
+            meterRegistry.counter("email.reminder.queued").increment(page.size());
+            after = ids.get(ids.size() - 1);
+        }
+    }
+
+    /** Waits while request threads are queueing for connections or the pool is past its share for this job. */
+    private void awaitPoolHeadroom() throws InterruptedException {
+        HikariPoolMXBean pool = hikari != null ? hikari.getHikariPoolMXBean() : null;
+        if (pool == null) {
+            return;
+        }
+        int limit = Math.max(1, (int) (hikari.getMaximumPoolSize() * maxPoolUsage));
+        while (pool.getThreadsAwaitingConnection() > 0 || pool.getActiveConnections() >= limit) {
+            meterRegistry.counter("email.reminder.backoff").increment();
+            Thread.sleep(busyBackoffMs);
+        }
+    }
+}
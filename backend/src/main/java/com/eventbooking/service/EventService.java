@@ -30,7 +30,7 @@ public class EventService {
     }
 
     public Event getEvent(@org.springframework.lang.NonNull UUID id) {
-        return eventRepository.findById(id)
+        return eventRepository.findWithCategoriesById(id)
                 .orElseThrow(() -> new RuntimeException("Event not found"));
     }
 
@@ -199,7 +199,13 @@ public class EventService {
     }
 
     @Autowired
-    private EmailService emailService;
+    private OutboxService outboxService;
+
+    @Autowired
+    private BookingCounters bookingCounters;
+
+    @Autowired
+    private SalesRollupService salesRollupService;
 
     public void cancelEvent(@org.springframework.lang.NonNull UUID id, String reason) {
         Event event = getEvent(id);
@@ -207,15 +213,19 @@ public class EventService {
         event.setCancellationReason(reason);
         eventRepository.save(event);
 
-        // Update all related bookings to CANCELLED and send emails
+        // Update all related bookings to CANCELLED; emails go out via the outbox after commit
         List<com.eventbooking.model.Booking> bookings = bookingRepository.findByEventCategory_Event_Id(id);
         for (com.eventbooking.model.Booking booking : bookings) {
+            String previousStatus = booking.getStatus();
             booking.setStatus("CANCELLED");
             bookingRepository.save(booking);
+            if (!"CANCELLED".equals(previousStatus)) {
+                bookingCounters.bookingCancelled(booking, "CONFIRMED".equals(previousStatus));
+                salesRollupService.bookingCancelled(booking);
+            }
 
-            // Send cancellation email to the user
             if (booking.getUser() != null && booking.getUser().getEmail() != null) {
-                emailService.sendCancellationEmail(booking.getUser().getEmail(), booking, reason);
+                outboxService.cancellationEmail(booking.getId(), reason);
             }
         }
     }
@@ -0,0 +1,138 @@
+package com.eventbooking.service;
+
+import com.eventbooking.dto.CheckInState;
+import com.eventbooking.dto.Dtos;
+import com.eventbooking.repository.BookingRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Applies entry scans that gate devices verified offline and upload in
+ * batches.
+ * <p>
+ * Conflict rule: the earliest scan of a booking wins, whichever gate made it
+ * and whenever it is synced. The first synced scan checks the booking in; a
+ * scan reported later but made earlier replaces the recorded time and gate;
+ * every other scan is a DUPLICATE and gets the winning scan back, so the gate
+ * can flag a ticket presented twice. Both writes are conditional updates, so
+ * concurrent syncs from several gates settle on the same winner without
+ * reading the booking first. Re-sending a batch is harmless.
+ */
+@Service
+public class GateCheckInService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GateCheckInService.class);
+
+    public static final String ACCEPTED = "ACCEPTED";
+    public static final String DUPLICATE = "DUPLICATE";
+    public static final String CANCELLED = "CANCELLED";
+    public static final String EXPIRED = "EXPIRED";
+    public static final String INVALID = "INVALID";
+
+    private record Pending(int index, TicketTokenService.Claims claims, LocalDateTime scannedAt) {
+    }
+
+    @Autowired
+    private TicketTokenService ticketTokenService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BookingCounters bookingCounters;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${tickets.sync.max-batch:1000}")
+    private int maxBatch;
+
+    /** Results come back in the order of the submitted scans. */
+    @Transactional
+    public List<Dtos.GateScanResult> sync(Dtos.GateCheckInSync request) {
+        String device = request.getDeviceId();
+        if (device == null || device.isBlank() || device.length() > 64) {
+            throw new IllegalArgumentException("deviceId is required (at most 64 characters)");
+        }
+        List<Dtos.GateScan> scans = request.getScans() != null ? request.getScans() : List.of();
+        if (scans.size() > maxBatch) {
+            throw new IllegalArgumentException("At most " + maxBatch + " scans per sync");
+        }
+
+        Dtos.GateScanResult[] results = new Dtos.GateScanResult[scans.size()];
+        List<Pending> pending = new ArrayList<>(scans.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < scans.size(); i++) {
+            Dtos.GateScan scan = scans.get(i);
+            TicketTokenService.Claims claims;
+            try {
+                claims = ticketTokenService.verify(scan.getToken());
+            } catch (IllegalArgumentException e) {
+                results[i] = new Dtos.GateScanResult(null, INVALID, null, null);
+                continue;
+            }
+            // A gate clock running ahead must not let its scans beat ones already recorded
+            LocalDateTime scannedAt = (scan.getScannedAt() == null || scan.getScannedAt().isAfter(now)
+                    ? now : scan.getScannedAt()).truncatedTo(ChronoUnit.MICROS); // database precision
+            if (claims.expiredAt(scannedAt.atZone(ZoneId.systemDefault()).toInstant())) {
+                results[i] = new Dtos.GateScanResult(claims.bookingId(), EXPIRED, null, null);
+                continue;
+            }
+            pending.add(new Pending(i, claims, scannedAt));
+        }
+
+        // Rows are locked in one order by every sync, so concurrent batches cannot deadlock
+        pending.sort(Comparator.comparing((Pending p) -> p.claims().bookingId()).thenComparing(Pending::scannedAt));
+        for (Pending scan : pending) {
+            results[scan.index()] = apply(scan, device, now);
+        }
+
+        long accepted = 0;
+        for (Dtos.GateScanResult result : results) {
+            meterRegistry.counter("tickets.gate.scans", "result", result.getStatus()).increment();
+            if (ACCEPTED.equals(result.getStatus())) {
+                accepted++;
+            }
+        }
+        logger.info("Gate {} synced {} scans ({} accepted)", device, scans.size(), accepted);
+        return List.of(results);
+    }
+
+    private Dtos.GateScanResult apply(Pending scan, String device, LocalDateTime now) {
+        UUID bookingId = scan.claims().bookingId();
+        if (bookingRepository.checkInFirst(bookingId, scan.scannedAt(), device, now) == 1) {
+            bookingCounters.checkedIn(scan.claims().eventId());
+            return new Dtos.GateScanResult(bookingId, ACCEPTED, scan.scannedAt(), device);
+        }
+        if (bookingRepository.checkInEarlier(bookingId, scan.scannedAt(), device, now) == 1) {
+            meterRegistry.counter("tickets.gate.reordered").increment();
+            return new Dtos.GateScanResult(bookingId, ACCEPTED, scan.scannedAt(), device);
+        }
+        CheckInState state = bookingRepository.findCheckInState(bookingId).orElse(null);
+        if (state == null) {
+            return new Dtos.GateScanResult(bookingId, INVALID, null, null);
+        }
+        if (CANCELLED.equals(state.getStatus())) {
+            return new Dtos.GateScanResult(bookingId, CANCELLED, null, null);
+        }
+        // The same scan sent again (a retried batch) is still the winner
+        boolean same = Objects.equals(state.getCheckedInAt(), scan.scannedAt())
+                && device.equals(state.getCheckedInDevice());
+        return new Dtos.GateScanResult(bookingId, same ? ACCEPTED : DUPLICATE, state.getCheckedInAt(),
+                state.getCheckedInDevice());
+    }
+}
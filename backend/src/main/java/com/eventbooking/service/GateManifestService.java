@@ -0,0 +1,276 @@
+package com.eventbooking.service;
+
+import com.eventbooking.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Streams per-event attendee manifests that gate devices preload to admit
+ * people without a network round trip, next to the signed ticket tokens.
+ * <p>
+ * A full manifest lists the event's confirmed bookings with their check-in
+ * state and ends with a Bloom filter of the same booking ids, so a device
+ * short on memory can keep only the filter. A delta ({@code since} = the
+ * version of the manifest a device holds) lists every booking of the event
+ * changed since then, cancelled ones included, and carries no filter. The
+ * version is the server time (epoch millis) at which the manifest was read;
+ * deltas reach back {@code tickets.manifest.delta-overlap-seconds} further,
+ * so a booking change that committed late is not missed (replaying a record
+ * is harmless). Bookings deleted outright only disappear with a full manifest.
+ * <p>
+ * Binary layout, big-endian:
+ * <pre>
+ * header   "EBMF", format (1) = 1, kind (1: 0 full, 1 delta), event id (16),
+ *          version (8), since (8, 0 for full)
+ * records  0x01, booking id (16), seats (2), flags (1: bit 0 valid, bit 1 checked in),
+ *          checked-in-at (8, epoch seconds, 0 if not)   ... repeated
+ * end      0x00, record count (4), filter bits m (4), hash count k (1), filter (m / 8 bytes)
+ * checksum CRC-32 of everything before it (4)
+ * </pre>
+ * Filter bit {@code i} is bit {@code i & 7} of byte {@code i >> 3}. A booking id
+ * with halves {@code msb}, {@code lsb} sets bits {@code (h1 + j * h2) mod m} for
+ * {@code j < k}, where {@code h1 = fmix64(msb)}, {@code h2 = fmix64(lsb) | 1} and
+ * fmix64 is MurmurHash3's 64-bit finalizer, mod taken as unsigned.
+ * <p>
+ * Rows come from a forward-only JDBC cursor and are written as they arrive,
+ * as in {@link BookingExportService}; only the filter is held in memory.
+ */
+@Service
+public class GateManifestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GateManifestService.class);
+
+    private static final byte[] MAGIC = "EBMF".getBytes(StandardCharsets.US_ASCII);
+    private static final byte FORMAT = 1;
+    private static final byte KIND_FULL = 0;
+    private static final byte KIND_DELTA = 1;
+    private static final byte FLAG_VALID = 1;
+    private static final byte FLAG_CHECKED_IN = 2;
+
+    // 32 MB of filter covers tens of millions of bookings at 0.1 %
+    private static final int MAX_FILTER_BITS = 1 << 28;
+
+    private static final String FROM = "FROM bookings b JOIN event_categories c ON c.id = b.event_category_id "
+            + "WHERE c.event_id = ?";
+
+    private static final String FULL_SQL = "SELECT b.id, b.seats_booked, b.status, b.checked_in, b.checked_in_at "
+            + FROM + " AND b.status = 'CONFIRMED'";
+
+    private static final String COUNT_SQL = "SELECT COUNT(*) " + FROM + " AND b.status = 'CONFIRMED'";
+
+    private static final String DELTA_SQL = "SELECT b.id, b.seats_booked, b.status, b.checked_in, b.checked_in_at "
+            + FROM + " AND b.updated_at > ?";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${tickets.manifest.fetch-size:1000}")
+    private int fetchSize;
+
+    @Value("${tickets.manifest.max-concurrent:4}")
+    private int maxConcurrent;
+
+    @Value("${tickets.manifest.bloom-false-positive-rate:0.001}")
+    private double falsePositiveRate;
+
+    @Value("${tickets.manifest.delta-overlap-seconds:60}")
+    private long deltaOverlapSeconds;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnlyTransaction;
+    private Semaphore manifests;
+
+    @PostConstruct
+    public void init() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(Math.max(1, fetchSize));
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        manifests = new Semaphore(Math.max(1, maxConcurrent));
+    }
+
+    /** Claims a manifest slot; call {@link #write} next, which gives it back. */
+    public void reserveSlot() {
+        if (!manifests.tryAcquire()) {
+            meterRegistry.counter("tickets.manifest.rejected").increment();
+            throw new TooManyRequestsException("Too many manifest downloads; please retry shortly", 5);
+        }
+    }
+
+    /** Version to stamp on a manifest read from now on. */
+    public long newVersion() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Writes the manifest of an event, a delta when {@code since} is given,
+     * and returns the record count, or -1 if the client disconnected.
+     * Releases the reserved slot.
+     */
+    public long write(UUID eventId, Long since, long version, OutputStream out) throws IOException {
+        boolean delta = since != null;
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(out, 16 * 1024),
+                    new CRC32());
+            DataOutputStream data = new DataOutputStream(checked);
+            data.write(MAGIC);
+            data.writeByte(FORMAT);
+            data.writeByte(delta ? KIND_DELTA : KIND_FULL);
+            writeUuid(data, eventId);
+            data.writeLong(version);
+            data.writeLong(delta ? since : 0L);
+
+            long[] count = { 0 };
+            BloomFilter filter = delta ? null : readOnlyTransaction.execute(tx -> BloomFilter.sized(
+                    jdbcTemplate.queryForObject(COUNT_SQL, Long.class, eventId), falsePositiveRate));
+            RowCallbackHandler handler = rs -> {
+                UUID bookingId = rs.getObject(1, UUID.class);
+                boolean valid = "CONFIRMED".equals(rs.getString(3));
+                boolean checkedIn = rs.getBoolean(4);
+                Timestamp checkedInAt = rs.getTimestamp(5);
+                try {
+                    data.writeByte(1);
+                    writeUuid(data, bookingId);
+                    data.writeShort(Math.min(rs.getInt(2), 0xFFFF));
+                    data.writeByte((valid ? FLAG_VALID : 0) | (checkedIn ? FLAG_CHECKED_IN : 0));
+                    data.writeLong(checkedIn && checkedInAt != null
+                            ? checkedInAt.toLocalDateTime().atZone(ZoneId.systemDefault()).toEpochSecond() : 0L);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (filter != null && valid) {
+                    filter.add(bookingId);
+                }
+                count[0]++;
+            };
+            readOnlyTransaction.executeWithoutResult(tx -> {
+                if (delta) {
+                    LocalDateTime from = LocalDateTime.ofInstant(Instant.ofEpochMilli(since), ZoneId.systemDefault())
+                            .minusSeconds(deltaOverlapSeconds);
+                    jdbcTemplate.query(DELTA_SQL, handler, eventId, Timestamp.valueOf(from));
+                } else {
+                    jdbcTemplate.query(FULL_SQL, handler, eventId);
+                }
+            });
+
+            data.writeByte(0);
+            data.writeInt((int) count[0]);
+            if (filter == null) {
+                data.writeInt(0);
+                data.writeByte(0);
+            } else {
+                data.writeInt(filter.bits());
+                data.writeByte(filter.hashes());
+                filter.writeTo(data);
+            }
+            data.flush();
+            // The checksum covers what was written so far, so it goes out untracked
+            new DataOutputStream(out).writeInt((int) checked.getChecksum().getValue());
+            out.flush();
+            meterRegistry.counter("tickets.manifest.records", "kind", delta ? "delta" : "full").increment(count[0]);
+            logger.info("Gate manifest for event {}: {} {} records", eventId, count[0], delta ? "delta" : "full");
+            return count[0];
+        } catch (UncheckedIOException e) {
+            logger.info("Gate manifest download aborted: {}", e.getCause().getMessage());
+            return -1;
+        } finally {
+            manifests.release();
+            sample.stop(meterRegistry.timer("tickets.manifest", "kind", delta ? "delta" : "full"));
+        }
+    }
+
+    private static void writeUuid(DataOutputStream data, UUID id) throws IOException {
+        data.writeLong(id.getMostSignificantBits());
+        data.writeLong(id.getLeastSignificantBits());
+    }
+
+    /** Fixed-size Bloom filter over booking ids, hashed as documented on the class. */
+    static final class BloomFilter {
+        private final long[] words;
+        private final int bits;
+        private final int hashes;
+
+        private BloomFilter(int bits, int hashes) {
+            this.bits = bits;
+            this.hashes = hashes;
+            this.words = new long[bits / 64];
+        }
+
+        static BloomFilter sized(Long expected, double falsePositiveRate) {
+            long n = Math.max(1, expected == null ? 0 : expected);
+            double p = Math.min(0.5, Math.max(1e-9, falsePositiveRate));
+            double optimal = Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+            int bits = (int) Math.min(MAX_FILTER_BITS, Math.max(64, ((long) optimal + 63) / 64 * 64));
+            int hashes = (int) Math.max(1, Math.min(16, Math.round((double) bits / n * Math.log(2))));
+            return new BloomFilter(bits, hashes);
+        }
+
+        int bits() {
+            return bits;
+        }
+
+        int hashes() {
+            return hashes;
+        }
+
+        void add(UUID id) {
+            long h1 = fmix64(id.getMostSignificantBits());
+            long h2 = fmix64(id.getLeastSignificantBits()) | 1;
+            for (int j = 0; j < hashes; j++) {
+                int bit = (int) Long.remainderUnsigned(h1 + j * h2, bits);
+                words[bit >>> 6] |= 1L << (bit & 63);
+            }
+        }
+
+        /** Byte {@code i} holds bits {@code 8i .. 8i+7}, lowest bit first. */
+        void writeTo(DataOutputStream data) throws IOException {
+            for (long word : words) {
+                for (int shift = 0; shift < 64; shift += 8) {
+                    data.writeByte((int) (word >>> shift));
+                }
+            }
+        }
+
+        private static long fmix64(long k) {
+            k ^= k >>> 33;
+            k *= 0xff51afd7ed558ccdL;
+            k ^= k >>> 33;
+            k *= 0xc4ceb9fe1a85ec53L;
+            k ^= k >>> 33;
+            return k;
+        }
+    }
+}
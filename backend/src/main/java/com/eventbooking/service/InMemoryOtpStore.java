@@ -0,0 +1,86 @@
+package com.eventbooking.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Default {@link OtpStore}: codes live in a concurrent map and never touch
+ * the database. Entries carry their own expiry and are dropped on read or by
+ * the periodic purge. Codes are lost on restart, which only means the user
+ * asks for a new one.
+ */
+@Component
+@ConditionalOnProperty(name = "otp.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryOtpStore implements OtpStore {
+
+    private static final class Entry {
+        final byte[] otp;
+        final long expiresAtMillis;
+        final AtomicInteger attempts = new AtomicInteger();
+
+        Entry(String otp, long expiresAtMillis) {
+            this.otp = otp.getBytes(StandardCharsets.UTF_8);
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAtMillis;
+        }
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public InMemoryOtpStore(MeterRegistry meterRegistry) {
+        Gauge.builder("otp.store.size", entries, Map::size)
+                .description("Live one-time codes held in memory")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void save(String email, String purpose, String otp, Duration ttl) {
+        entries.put(key(email, purpose), new Entry(otp, System.currentTimeMillis() + ttl.toMillis()));
+    }
+
+    @Override
+    public Result verify(String email, String purpose, String otp, int maxAttempts) {
+        String key = key(email, purpose);
+        Entry entry = entries.get(key);
+        if (entry == null || otp == null) {
+            return Result.INVALID;
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            entries.remove(key, entry);
+            return Result.EXPIRED;
+        }
+        if (entry.attempts.incrementAndGet() > maxAttempts) {
+            return Result.LOCKED;
+        }
+        return MessageDigest.isEqual(entry.otp, otp.getBytes(StandardCharsets.UTF_8)) ? Result.VALID : Result.INVALID;
+    }
+
+    @Override
+    public void remove(String email, String purpose) {
+        entries.remove(key(email, purpose));
+    }
+
+    @Override
+    public int purgeExpired() {
+        long now = System.currentTimeMillis();
+        int before = entries.size();
+        entries.values().removeIf(entry -> entry.isExpired(now));
+        return Math.max(0, before - entries.size());
+    }
+
+    private static String key(String email, String purpose) {
+        return purpose + ':' + email;
+    }
+}
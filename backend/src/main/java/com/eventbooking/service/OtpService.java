@@ -1,27 +1,44 @@
 package com.eventbooking.service;
 
-import com.eventbooking.model.EmailOtp;
+import com.eventbooking.exception.TooManyRequestsException;
 import com.eventbooking.model.User;
-import com.eventbooking.repository.EmailOtpRepository;
 import com.eventbooking.repository.UserRepository;
+import com.eventbooking.security.TokenRevocationCache;
+import com.eventbooking.util.KeyedRateLimiter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
-import java.time.LocalDateTime;
-import java.util.Optional;
-import java.util.Random;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @Transactional
 public class OtpService {
 
+    private static final Logger logger = LoggerFactory.getLogger(OtpService.class);
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
-    private EmailOtpRepository emailOtpRepository;
+    private OtpStore otpStore;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
 
     @Autowired
     private EmailService emailService;
@@ -29,8 +46,48 @@ public class OtpService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private TokenRevocationCache tokenRevocationCache;
+
+    @Value("${otp.ttl-minutes:5}")
+    private long ttlMinutes;
+
+    @Value("${otp.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${otp.throttle.email.burst:3}")
+    private int emailBurst;
+
+    @Value("${otp.throttle.email.per-hour:10}")
+    private double emailPerHour;
+
+    @Value("${otp.throttle.ip.burst:10}")
+    private int ipBurst;
+
+    @Value("${otp.throttle.ip.per-hour:60}")
+    private double ipPerHour;
+
+    @Value("${otp.throttle.max-keys:100000}")
+    private int maxKeys;
+
+    private KeyedRateLimiter emailLimiter;
+    private KeyedRateLimiter ipLimiter;
+
+    @PostConstruct
+    public void init() {
+        emailLimiter = new KeyedRateLimiter(emailBurst, emailPerHour / 3600, maxKeys);
+        ipLimiter = new KeyedRateLimiter(ipBurst, ipPerHour / 3600, maxKeys);
+        Gauge.builder("otp.throttle.keys", this, service -> service.emailLimiter.size() + service.ipLimiter.size())
+                .description("Emails and client addresses currently tracked by the OTP throttles")
+                .register(meterRegistry);
+    }
+
     // Generate OTP for a generic purpose (SIGNUP, RESET)
     public void generateOtp(String email, String purpose) {
+        // Throttled before any lookup or mail, so a flood of requests costs neither a query nor an SMTP send
+        throttle(ipLimiter, clientIp(), "ip", "Too many verification codes requested from this network");
+        throttle(emailLimiter, email.toLowerCase(), "email", "Too many verification codes requested for this email");
+
         // For RESET, user must exist. For SIGNUP, user might just be created or
         // pre-check.
         // But logic: register -> create user (unverified) -> generate OTP (SIGNUP).
@@ -41,22 +98,10 @@ public class OtpService {
                     .orElseThrow(() -> new RuntimeException("User not found: " + email));
         }
 
-        String otp = String.format("%06d", new Random().nextInt(999999));
-
-        // Clean old OTPs for this email & purpose
-        emailOtpRepository.deleteByEmailAndPurpose(email, purpose); // Requires @Transactional or specialized handling?
-        // Let's just save a new one. Actually, delete old ones is good hygiene.
-        // Need @Transactional on the method or repo method.
-        // For simplicity, just saving new one. We can find latest by created_at if
-        // multiple exist, or just use findByEmailAndOtp.
+        String otp = String.format("%06d", RANDOM.nextInt(1_000_000));
 
-        EmailOtp emailOtp = new EmailOtp();
-        emailOtp.setEmail(email);
-        emailOtp.setOtp(otp);
-        emailOtp.setPurpose(purpose);
-        emailOtp.setExpiresAt(LocalDateTime.now().plusMinutes(5));
-
-        emailOtpRepository.save(emailOtp);
+        // Replaces any earlier code for this email & purpose
+        otpStore.save(email, purpose, otp, Duration.ofMinutes(ttlMinutes));
 
         emailService.sendHtmlOtp(email, otp, purpose);
     }
@@ -68,19 +113,13 @@ public class OtpService {
     }
 
     public boolean verifyOtp(String email, String otp, String purpose) {
-        Optional<EmailOtp> otpOpt = emailOtpRepository.findByEmailAndOtpAndPurpose(email, otp, purpose);
-
-        if (otpOpt.isEmpty()) {
-            return false;
+        OtpStore.Result result = otpStore.verify(email, purpose, otp, maxAttempts);
+        meterRegistry.counter("otp.verify", "result", result.name().toLowerCase()).increment();
+        if (result == OtpStore.Result.LOCKED) {
+            throw new TooManyRequestsException("Too many attempts for this code; request a new one",
+                    Duration.ofMinutes(ttlMinutes).toSeconds());
         }
-
-        EmailOtp emailOtp = otpOpt.get();
-        if (LocalDateTime.now().isAfter(emailOtp.getExpiresAt())) {
-            return false;
-        }
-
-        // OTP is valid.
-        return true;
+        return result == OtpStore.Result.VALID;
     }
 
     // Overload for backward compat
@@ -95,8 +134,33 @@ public class OtpService {
     }
 
     public void markOtpUsed(String email, String otp, String purpose) {
-        Optional<EmailOtp> otpOpt = emailOtpRepository.findByEmailAndOtpAndPurpose(email, otp, purpose);
-        otpOpt.ifPresent(emailOtpRepository::delete);
+        otpStore.remove(email, purpose);
+    }
+
+    @Scheduled(fixedDelayString = "${otp.sweep-interval-ms:60000}")
+    public void purgeExpired() {
+        int purged = otpStore.purgeExpired();
+        emailLimiter.evictIdle();
+        ipLimiter.evictIdle();
+        if (purged > 0) {
+            logger.debug("Purged {} expired OTPs", purged);
+        }
+    }
+
+    private void throttle(KeyedRateLimiter limiter, String key, String scope, String message) {
+        long waitNanos = limiter.tryAcquire(key);
+        if (waitNanos > 0) {
+            meterRegistry.counter("otp.throttled", "scope", scope).increment();
+            throw new TooManyRequestsException(message, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1);
+        }
+    }
+
+    // Tomcat resolves X-Forwarded-For into the remote address (server.forward-headers-strategy=native)
+    private static String clientIp() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            return attributes.getRequest().getRemoteAddr();
+        }
+        return "internal";
     }
 
     public void resetPassword(String email, String newPassword) {
@@ -117,6 +181,8 @@ public class OtpService {
 
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        // Sign out sessions that were opened with the old password
+        tokenRevocationCache.revokeAll(user.getId());
     }
 
     public void verifyEmail(String email) {
@@ -0,0 +1,31 @@
+package com.eventbooking.service;
+
+import java.time.Duration;
+
+/**
+ * Where issued one-time codes live between {@code generateOtp} and
+ * verification. At most one code is live per email and purpose; issuing a
+ * new one replaces it. Selected with {@code otp.store}: {@code memory}
+ * (default, single node) or {@code database} (shared {@code email_otp} table
+ * for several nodes).
+ */
+public interface OtpStore {
+
+    enum Result {
+        VALID, INVALID, EXPIRED, LOCKED
+    }
+
+    void save(String email, String purpose, String otp, Duration ttl);
+
+    /**
+     * Checks a code and counts the attempt. After {@code maxAttempts} wrong
+     * or right guesses the code is {@link Result#LOCKED} until a new one is
+     * issued.
+     */
+    Result verify(String email, String purpose, String otp, int maxAttempts);
+
+    void remove(String email, String purpose);
+
+    /** Deletes expired codes; returns how many were removed. */
+    int purgeExpired();
+}
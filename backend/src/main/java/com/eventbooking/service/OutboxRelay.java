@@ -0,0 +1,209 @@
+package com.eventbooking.service;
+
+import com.eventbooking.dto.Dtos;
+import com.eventbooking.model.Booking;
+import com.eventbooking.model.OutboxEvent;
+import com.eventbooking.repository.BookingRepository;
+import com.eventbooking.repository.OutboxEventRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Delivers outbox events in batches with retry and exponential backoff.
+ * Delivery is at-least-once: a crash between dispatch and marking SENT
+ * replays the event after the claim lease expires.
+ */
+@Service
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private SocketIOService socketIOService;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${outbox.relay.batch-size:50}")
+    private int batchSize;
+
+    @Value("${outbox.relay.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${outbox.relay.lease-ms:120000}")
+    private long leaseMs;
+
+    @Value("${outbox.relay.retention-hours:72}")
+    private long retentionHours;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    // Set by wake-ups; a pass in progress goes round again instead of dropping them
+    private final AtomicBoolean rerun = new AtomicBoolean(false);
+    private final ExecutorService wakeUpExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "outbox-relay");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("outbox.pending", outboxEventRepository,
+                repo -> repo.countByStatus(OutboxEvent.STATUS_PENDING))
+                .description("Outbox events awaiting delivery")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        wakeUpExecutor.shutdown();
+    }
+
+    /** Triggers an immediate relay pass on the relay thread. */
+    public void wakeUp() {
+        rerun.set(true);
+        try {
+            wakeUpExecutor.execute(this::relay);
+        } catch (RejectedExecutionException e) {
+            // Shutting down; the next start-up poll delivers what is left
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.interval-ms:2000}")
+    public void relay() {
+        // If a pass is already running this returns at once; a wake-up set rerun, so that pass goes again.
+        // rerun is checked once more after running is cleared, for a wake-up that lands in between.
+        while (running.compareAndSet(false, true)) {
+            try {
+                do {
+                    rerun.set(false);
+                    relayDue();
+                } while (rerun.get());
+            } finally {
+                running.set(false);
+            }
+            if (!rerun.get()) {
+                return;
+            }
+        }
+    }
+
+    private void relayDue() {
+        try {
+            List<OutboxEvent> batch;
+            do {
+                batch = outboxEventRepository.findDue(LocalDateTime.now(), PageRequest.of(0, batchSize));
+                for (OutboxEvent event : batch) {
+                    if (outboxEventRepository.claim(event.getId(), LocalDateTime.now()) == 1) {
+                        deliver(event);
+                    }
+                }
+            } while (batch.size() == batchSize);
+        } catch (Exception e) {
+            logger.error("Outbox relay pass failed", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.maintenance-interval-ms:300000}")
+    public void maintenance() {
+        LocalDateTime now = LocalDateTime.now();
+        int released = outboxEventRepository.releaseStale(now.minusNanos(leaseMs * 1_000_000L));
+        if (released > 0) {
+            logger.warn("Released {} stale outbox events for redelivery", released);
+        }
+        outboxEventRepository.deleteSentBefore(now.minusHours(retentionHours));
+    }
+
+    private void deliver(OutboxEvent event) {
+        try {
+            dispatch(event);
+            event.setStatus(OutboxEvent.STATUS_SENT);
+            event.setSentAt(LocalDateTime.now());
+            event.setLastError(null);
+            meterRegistry.counter("outbox.delivered", "type", event.getEventType(), "outcome", "sent").increment();
+        } catch (Exception e) {
+            int attempts = event.getAttempts() + 1;
+            event.setAttempts(attempts);
+            event.setLastError(e.getMessage());
+            if (attempts >= maxAttempts) {
+                event.setStatus(OutboxEvent.STATUS_DEAD);
+                meterRegistry.counter("outbox.delivered", "type", event.getEventType(), "outcome", "dead")
+                        .increment();
+                logger.error("Outbox event {} ({}) dead after {} attempts", event.getId(), event.getEventType(),
+                        attempts, e);
+            } else {
+                event.setStatus(OutboxEvent.STATUS_PENDING);
+                // Exponential backoff: 2s, 4s, 8s ... capped at 10 minutes
+                long delaySeconds = Math.min(600, 1L << attempts);
+                event.setNextAttemptAt(LocalDateTime.now().plusSeconds(delaySeconds));
+                meterRegistry.counter("outbox.delivered", "type", event.getEventType(), "outcome", "retry")
+                        .increment();
+                logger.warn("Outbox event {} ({}) failed (attempt {}), retrying in {}s: {}", event.getId(),
+                        event.getEventType(), attempts, delaySeconds, e.getMessage());
+            }
+        }
+        event.setLockedAt(null);
+        outboxEventRepository.save(event);
+    }
+
+    private void dispatch(OutboxEvent event) throws Exception {
+        JsonNode payload = objectMapper.readTree(event.getPayload());
+        switch (event.getEventType()) {
+            case OutboxEvent.TYPE_PAYMENT_UPDATE -> {
+                Dtos.WalletTransferResponse response = new Dtos.WalletTransferResponse();
+                response.setReference(payload.path("reference").asText());
+                response.setStatus(payload.path("status").asText());
+                if (payload.hasNonNull("reason")) {
+                    response.setReason(payload.path("reason").asText());
+                }
+                socketIOService.sendPaymentUpdate(response.getReference(), response);
+            }
+            case OutboxEvent.TYPE_TICKET_EMAIL -> {
+                Booking booking = loadBooking(payload);
+                emailService.sendTicketEmail(booking.getUser().getEmail(), booking);
+            }
+            case OutboxEvent.TYPE_CANCELLATION_EMAIL -> {
+                Booking booking = loadBooking(payload);
+                if (booking.getUser() != null && booking.getUser().getEmail() != null) {
+                    String reason = payload.hasNonNull("reason") ? payload.path("reason").asText() : null;
+                    emailService.sendCancellationEmail(booking.getUser().getEmail(), booking, reason);
+                }
+            }
+            default -> throw new IllegalStateException("Unknown outbox event type: " + event.getEventType());
+        }
+    }
+
+    private Booking loadBooking(JsonNode payload) {
+        UUID bookingId = UUID.fromString(payload.path("bookingId").asText());
+        return bookingRepository.findById(bookingId)
+                .orElseThrow(() -> new IllegalStateException("Booking not found: " + bookingId));
+    }
+}
@@ -0,0 +1,80 @@
+package com.eventbooking.service;
+
+import com.eventbooking.model.OutboxEvent;
+import com.eventbooking.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Writes side effects to the outbox table. Called inside the transaction that
+ * changes bookings, so the side effect is recorded if and only if the change
+ * commits; {@link OutboxRelay} delivers it afterwards.
+ */
+@Service
+public class OutboxService {
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Transactional
+    public void append(String eventType, String aggregateId, Map<String, Object> payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setEventType(eventType);
+        event.setAggregateId(aggregateId);
+        try {
+            event.setPayload(objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Outbox payload is not serializable", e);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        event.setCreatedAt(now);
+        event.setNextAttemptAt(now);
+        outboxEventRepository.save(event);
+
+        // Nudge the relay once the surrounding transaction commits instead of waiting for its next poll
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    outboxRelay.wakeUp();
+                }
+            });
+        } else {
+            outboxRelay.wakeUp();
+        }
+    }
+
+    public void paymentUpdate(String referenceId, String status, String reason) {
+        Map<String, Object> payload = new java.util.HashMap<>();
+        payload.put("reference", referenceId);
+        payload.put("status", status);
+        if (reason != null) {
+            payload.put("reason", reason);
+        }
+        append(OutboxEvent.TYPE_PAYMENT_UPDATE, referenceId, payload);
+    }
+
+    public void ticketEmail(java.util.UUID bookingId) {
+        append(OutboxEvent.TYPE_TICKET_EMAIL, bookingId.toString(), Map.of("bookingId", bookingId.toString()));
+    }
+
+    public void cancellationEmail(java.util.UUID bookingId, String reason) {
+        Map<String, Object> payload = new java.util.HashMap<>();
+        payload.put("bookingId", bookingId.toString());
+        payload.put("reason", reason);
+        append(OutboxEvent.TYPE_CANCELLATION_EMAIL, bookingId.toString(), payload);
+    }
+}
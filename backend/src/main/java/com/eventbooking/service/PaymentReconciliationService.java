@@ -0,0 +1,203 @@
+package com.eventbooking.service;
+
+import com.eventbooking.model.PendingPayment;
+import com.eventbooking.repository.PendingPaymentRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resolves pending payments whose webhook or frontend finalize call never
+ * arrived. Stale PENDING rows are scanned page by page and verified against
+ * the wallet with bounded parallelism; paid references are finalized, unpaid
+ * ones are expired and their seat holds released once the wallet's payment
+ * session has expired ({@code wallet.payment.expiry-minutes}) plus a margin,
+ * so a customer can no longer pay for a reference that was given up on. A
+ * payment that still arrives later is handled by {@link PaymentService#finalizePayment}.
+ */
+@Service
+public class PaymentReconciliationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentReconciliationService.class);
+
+    @Autowired
+    private PendingPaymentRepository pendingPaymentRepository;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${payment.reconciliation.min-age-seconds:120}")
+    private long minAgeSeconds;
+
+    @Value("${wallet.payment.expiry-minutes:30}")
+    private long walletExpiryMinutes;
+
+    @Value("${payment.reconciliation.release-margin-minutes:5}")
+    private long releaseMarginMinutes;
+
+    @Value("${payment.reconciliation.page-size:50}")
+    private int pageSize;
+
+    @Value("${payment.reconciliation.parallelism:4}")
+    private int parallelism;
+
+    @Value("${payment.finalize.verify-lease-ms:60000}")
+    private long verifyLeaseMs;
+
+    private ExecutorService verifierPool;
+
+    // Age of the oldest unresolved payment as of the last run
+    private final AtomicLong lagSeconds = new AtomicLong();
+    private final AtomicLong lastRunEpochSeconds = new AtomicLong();
+
+    private enum Outcome {
+        FINALIZED, RELEASED, STILL_PENDING, UNVERIFIABLE, REFUND_DUE, ERROR
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        verifierPool = Executors.newFixedThreadPool(Math.max(1, parallelism), r -> {
+            Thread t = new Thread(r, "payment-reconciler-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        Gauge.builder("payment.reconciliation.lag.seconds", lagSeconds, AtomicLong::get)
+                .description("Age of the oldest unresolved pending payment")
+                .register(meterRegistry);
+        Gauge.builder("payment.reconciliation.last.run", lastRunEpochSeconds, AtomicLong::get)
+                .description("Epoch seconds of the last completed reconciliation run")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        verifierPool.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "${payment.reconciliation.interval-ms:60000}",
+            initialDelayString = "${payment.reconciliation.initial-delay-ms:30000}")
+    public void reconcile() {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        LocalDateTime now = LocalDateTime.now();
+
+        int reset = pendingPaymentRepository.resetStaleVerified(now.minusNanos(verifyLeaseMs * 1_000_000L), now);
+        if (reset > 0) {
+            logger.warn("Reconciler: {} payments were stranded after verification; re-queued", reset);
+        }
+
+        LocalDateTime cutoff = now.minusSeconds(minAgeSeconds);
+        LocalDateTime afterCreatedAt = LocalDateTime.of(1970, 1, 1, 0, 0);
+        String afterRef = "";
+        int scanned = 0;
+
+        while (true) {
+            List<PendingPayment> page = pendingPaymentRepository.findStalePending(cutoff, afterCreatedAt, afterRef,
+                    PageRequest.of(0, pageSize));
+            if (page.isEmpty()) {
+                break;
+            }
+
+            List<Future<Outcome>> results = new ArrayList<>(page.size());
+            for (PendingPayment payment : page) {
+                results.add(verifierPool.submit(reconcileOne(payment)));
+            }
+            for (Future<Outcome> result : results) {
+                Outcome outcome;
+                try {
+                    outcome = result.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (ExecutionException e) {
+                    outcome = Outcome.ERROR;
+                }
+                meterRegistry.counter("payment.reconciliation", "outcome", outcome.name().toLowerCase()).increment();
+            }
+
+            scanned += page.size();
+            PendingPayment last = page.get(page.size() - 1);
+            afterCreatedAt = last.getCreatedAt();
+            afterRef = last.getReferenceId();
+            if (page.size() < pageSize) {
+                break;
+            }
+        }
+
+        LocalDateTime oldest = pendingPaymentRepository.findOldestPendingCreatedAt();
+        lagSeconds.set(oldest == null ? 0 : Math.max(0, Duration.between(oldest, LocalDateTime.now()).getSeconds()));
+        lastRunEpochSeconds.set(System.currentTimeMillis() / 1000);
+        sample.stop(meterRegistry.timer("payment.reconciliation.duration"));
+        if (scanned > 0) {
+            logger.info("Reconciler: checked {} stale pending payments, lag now {}s", scanned, lagSeconds.get());
+        }
+    }
+
+    private Callable<Outcome> reconcileOne(PendingPayment payment) {
+        return () -> {
+            String referenceId = payment.getReferenceId();
+            try {
+                switch (paymentService.verifyReference(referenceId)) {
+                    case PAID:
+                        logger.info("Reconciler: finalizing paid reference {} that was never confirmed", referenceId);
+                        // Already verified above: book without asking the wallet a second time
+                        return switch (paymentService.finalizeVerifiedPayment(referenceId)) {
+                            case BOOKED -> Outcome.FINALIZED;
+                            case PROCESSING -> Outcome.STILL_PENDING;
+                            case REFUND_DUE -> Outcome.REFUND_DUE;
+                            default -> Outcome.ERROR;
+                        };
+                    case NOT_PAID:
+                        LocalDateTime createdAt = payment.getCreatedAt();
+                        if (createdAt != null
+                                && createdAt.isBefore(LocalDateTime.now()
+                                        .minusMinutes(walletExpiryMinutes + releaseMarginMinutes))
+                                && pendingPaymentRepository.transition(referenceId, PendingPayment.STATUS_PENDING,
+                                        PendingPayment.STATUS_EXPIRED, LocalDateTime.now()) == 1) {
+                            bookingService.releaseHoldsForPayment(referenceId);
+                            paymentService.removePendingBooking(referenceId);
+                            outboxService.paymentUpdate(referenceId, "FAILED", "Payment was not completed in time");
+                            logger.info("Reconciler: released unpaid reference {}", referenceId);
+                            return Outcome.RELEASED;
+                        }
+                        return Outcome.STILL_PENDING;
+                    default:
+                        return Outcome.UNVERIFIABLE;
+                }
+            } catch (Exception e) {
+                logger.error("Reconciler: failed to reconcile reference {}", referenceId, e);
+                return Outcome.ERROR;
+            }
+        };
+    }
+}
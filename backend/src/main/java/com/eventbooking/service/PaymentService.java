@@ -12,23 +12,24 @@ import com.eventbooking.dto.Dtos;
 
 import jakarta.annotation.PostConstruct;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.util.UriComponentsBuilder;
 
-import org.springframework.transaction.annotation.Transactional;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.eventbooking.model.PendingPayment;
 import com.eventbooking.repository.PendingPaymentRepository;
 import java.util.Arrays;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import com.eventbooking.exception.WalletUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
 
 @Service
 public class PaymentService {
@@ -53,16 +54,39 @@ public class PaymentService {
     @Value("${app.frontend.url}")
     private String frontendUrl;
 
+    @Value("${wallet.http.connect-timeout-ms:2000}")
+    private long walletConnectTimeoutMs;
+
+    @Value("${wallet.http.read-timeout-ms:5000}")
+    private long walletReadTimeoutMs;
+
+    @Autowired
+    private RestTemplateBuilder restTemplateBuilder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private WalletCircuitBreaker walletCircuitBreaker;
+
+    // Shared client with bounded timeouts; every call goes through walletCircuitBreaker
+    private RestTemplate restTemplate;
+
     @Autowired
     private PendingPaymentRepository pendingPaymentRepository;
 
     private final ObjectMapper objectMapper = new ObjectMapper();
 
-    // In-memory storage for pending bookings (ReferenceId -> BookingRequest List)
-    private final Map<String, List<Dtos.BookingRequest>> pendingBookings = new ConcurrentHashMap<>();
+    // Bounded front for pending_payments.booking_data (ReferenceId -> BookingRequest List)
+    @Autowired
+    private PendingBookingCache pendingBookings;
 
     @PostConstruct
     public void init() {
+        restTemplate = restTemplateBuilder
+                .setConnectTimeout(Duration.ofMillis(walletConnectTimeoutMs))
+                .setReadTimeout(Duration.ofMillis(walletReadTimeoutMs))
+                .build();
         logger.info("PaymentService initialized with Wallet URL: {}", walletServiceUrl);
         logger.info("Merchant ID: {}", walletMerchantId);
     }
@@ -105,32 +129,19 @@ public class PaymentService {
     public Dtos.WalletTransferResponse initiateWalletTransfer(Dtos.WalletTransferInitiationRequest request,
             List<Dtos.BookingRequest> bookings) {
 
-        RestTemplate restTemplate = new RestTemplate();
         Dtos.WalletTransferResponse response = new Dtos.WalletTransferResponse();
 
         try {
-            // 1. Store bookings locally and in DB to claim later
-            if (bookings != null) {
-                pendingBookings.put(request.getReference(), bookings);
-                try {
-                    String payloadJson = objectMapper.writeValueAsString(bookings);
-                    pendingPaymentRepository.save(new PendingPayment(request.getReference(), payloadJson));
-                    logger.info("Saved pending booking to DB for ref: {}", request.getReference());
-                } catch (JsonProcessingException e) {
-                    logger.error("Failed to serialize booking payload", e);
-                }
+            // 1. Store bookings in DB (and the cache in front of it) to claim later
+            if (bookings != null && !storePendingBookings(request.getReference(), bookings)) {
+                response.setStatus("FAILED");
+                response.setReason("Could not record the booking; please try again");
+                return response;
             }
 
             // 2. Prepare External API Request
             String createUrl = walletServiceUrl + "/api/external/create-request";
 
-            // Cleanup old pending payments (e.g., > 24 hours) as a maintenance step
-            try {
-                pendingPaymentRepository.deleteByCreatedAtBefore(java.time.LocalDateTime.now().minusDays(1));
-            } catch (Exception e) {
-                logger.error("Maintenance: Failed to cleanup old pending payments", e);
-            }
-
             JSONObject payload = new JSONObject();
             payload.put("amount", request.getAmount()); // Amount in cents/smallest unit
             payload.put("merchantId", walletMerchantId);
@@ -156,8 +167,12 @@ public class PaymentService {
             int maxRetries = 2;
             for (int i = 0; i <= maxRetries; i++) {
                 try {
-                    responseStr = restTemplate.postForObject(createUrl, entity, String.class);
+                    responseStr = walletCircuitBreaker.execute("create-request",
+                            () -> restTemplate.postForObject(createUrl, entity, String.class));
                     break;
+                } catch (WalletUnavailableException ex) {
+                    // Breaker is open or bulkhead full: retrying would only queue more threads
+                    throw ex;
                 } catch (Exception ex) {
                     if (i == maxRetries) {
                         logger.error("Failed to connect to Wallet Gateway after retries: {}", ex.getMessage());
@@ -193,6 +208,11 @@ public class PaymentService {
                 response.setReason(jsonRes.optString("message", "Gateway returned failure"));
             }
 
+        } catch (WalletUnavailableException e) {
+            logger.warn("Wallet transfer initiation rejected for Reference {}: {}", request.getReference(),
+                    e.getMessage());
+            response.setStatus("FAILED");
+            response.setReason(e.getMessage());
         } catch (Exception e) {
             logger.error("Error initiating wallet transfer", e);
             response.setStatus("FAILED");
@@ -202,26 +222,38 @@ public class PaymentService {
         return response;
     }
 
+    /**
+     * Persists a reference's basket before any money moves. Finalization claims
+     * the pending_payments row, so without it a paid reference could never be
+     * booked: callers must not contact the wallet when this returns false.
+     */
+    private boolean storePendingBookings(String referenceId, List<Dtos.BookingRequest> bookings) {
+        try {
+            pendingPaymentRepository.save(new PendingPayment(referenceId, PendingBookingCodec.encode(bookings)));
+        } catch (Exception e) {
+            logger.error("Failed to persist pending booking for ref: {}; not contacting the wallet", referenceId, e);
+            return false;
+        }
+        pendingBookings.put(referenceId, bookings);
+        logger.info("Saved pending booking to DB for ref: {}", referenceId);
+        return true;
+    }
+
     /**
      * 1b. Process Direct Wallet Transfer (Card/ID)
      */
     public Dtos.WalletTransferResponse processDirectWalletTransfer(Dtos.ProcessWalletPaymentRequest request) {
         Dtos.WalletTransferResponse response = new Dtos.WalletTransferResponse();
-        RestTemplate restTemplate = new RestTemplate();
 
         String referenceId = request.getReference();
         double amount = request.getAmount();
 
         try {
             // 1. Save bookings as pending
-            if (request.getBookings() != null) {
-                pendingBookings.put(referenceId, request.getBookings());
-                try {
-                    String payloadJson = objectMapper.writeValueAsString(request.getBookings());
-                    pendingPaymentRepository.save(new PendingPayment(referenceId, payloadJson));
-                } catch (Exception e) {
-                    logger.error("Failed to persist pending booking", e);
-                }
+            if (request.getBookings() != null && !storePendingBookings(referenceId, request.getBookings())) {
+                response.setStatus("FAILED");
+                response.setReason("Could not record the booking; please try again");
+                return response;
             }
 
             // 2. Call ZenWallet Direct API
@@ -249,15 +281,22 @@ public class PaymentService {
 
             HttpEntity<String> entity = new HttpEntity<>(payload.toString(), headers);
 
-            String responseStr = restTemplate.postForObject(transferUrl, entity, String.class);
+            String responseStr = walletCircuitBreaker.execute("transfer",
+                    () -> restTemplate.postForObject(transferUrl, entity, String.class));
             JSONObject jsonRes = new JSONObject(responseStr);
 
             if (jsonRes.optBoolean("success")) {
                 // Payment success! Now finalize booking.
                 // We reuse processSuccessfulPayment which verifies and books.
-                if (processSuccessfulPayment(referenceId)) {
+                FinalizeResult result = finalizePayment(referenceId);
+                if (result == FinalizeResult.BOOKED) {
                     response.setStatus("SUCCESS");
                     response.setTransactionId(jsonRes.optString("transactionId"));
+                } else if (result == FinalizeResult.PROCESSING || result == FinalizeResult.UNKNOWN) {
+                    // The webhook is booking it, or the reconciler will once the wallet answers again;
+                    // the outcome follows over the payment update channel
+                    response.setStatus("PROCESSING");
+                    response.setTransactionId(jsonRes.optString("transactionId"));
                 } else {
                     response.setStatus("FAILED_AT_BOOKING");
                     response.setReason("Payment successful but booking failed. Ref: " + referenceId);
@@ -291,7 +330,19 @@ public class PaymentService {
      * Endpoint: GET /api/external/verify-reference
      */
     public boolean finalizeWalletPayment(String referenceId) {
-        RestTemplate restTemplate = new RestTemplate();
+        return verifyReference(referenceId) == VerificationResult.PAID;
+    }
+
+    /**
+     * Outcome of a verify-reference call. UNKNOWN means the wallet could not
+     * be asked (breaker open, timeout, error), which must never be read as
+     * "not paid" by anything that releases seats.
+     */
+    public enum VerificationResult {
+        PAID, NOT_PAID, UNKNOWN
+    }
+
+    public VerificationResult verifyReference(String referenceId) {
         String verifyUrl = walletServiceUrl + "/api/external/verify-reference";
 
         try {
@@ -306,24 +357,28 @@ public class PaymentService {
 
             logger.info("Verifying Wallet Payment: {} (Ref: {})", verifyUrl, referenceId);
 
-            ResponseEntity<String> res = restTemplate.exchange(builder.toUriString(),
-                    Objects.requireNonNull(HttpMethod.GET), entity,
-                    String.class);
+            ResponseEntity<String> res = walletCircuitBreaker.execute("verify-reference",
+                    () -> restTemplate.exchange(builder.toUriString(),
+                            Objects.requireNonNull(HttpMethod.GET), entity,
+                            String.class));
 
             if (res.getBody() != null) {
                 JSONObject jsonRes = new JSONObject(res.getBody());
                 // Expecting { "received": true, ... }
                 if (jsonRes.optBoolean("received", false)) {
                     logger.info("Payment Verified Successfully for Ref: {}", referenceId);
-                    return true;
+                    return VerificationResult.PAID;
                 }
             }
             logger.warn("Payment Verification Failed for Ref: {} - Body: {}", referenceId, res.getBody());
-            return false;
+            return VerificationResult.NOT_PAID;
 
+        } catch (WalletUnavailableException e) {
+            logger.warn("Skipping wallet verification for Ref {}: {}", referenceId, e.getMessage());
+            return VerificationResult.UNKNOWN;
         } catch (Exception e) {
             logger.error("Error verifying wallet payment", e);
-            return false;
+            return VerificationResult.UNKNOWN;
         }
     }
 
@@ -336,25 +391,40 @@ public class PaymentService {
     public List<Dtos.BookingRequest> getPendingBookings(String referenceId) {
         if (referenceId == null)
             return Collections.emptyList();
-        List<Dtos.BookingRequest> inMemory = pendingBookings.get(referenceId);
-        if (inMemory != null)
-            return inMemory;
+        List<Dtos.BookingRequest> cached = pendingBookings.get(referenceId);
+        if (cached != null)
+            return cached;
 
         // Fallback to DB
         return pendingPaymentRepository.findById(referenceId).map(p -> {
-            try {
-                return Arrays.asList(objectMapper.readValue(p.getBookingPayload(), Dtos.BookingRequest[].class));
-            } catch (JsonProcessingException e) {
-                logger.error("Failed to deserialize booking payload from DB", e);
-                return null;
+            List<Dtos.BookingRequest> requests = decodePendingBookings(p);
+            if (requests != null && PendingPayment.STATUS_PENDING.equals(p.getStatus())) {
+                pendingBookings.put(referenceId, requests);
             }
+            return requests;
         }).orElse(Collections.emptyList());
     }
 
+    private List<Dtos.BookingRequest> decodePendingBookings(PendingPayment payment) {
+        try {
+            if (payment.getBookingData() != null) {
+                return PendingBookingCodec.decode(payment.getBookingData());
+            }
+            // Rows written before the binary encoding
+            return Arrays.asList(objectMapper.readValue(payment.getBookingPayload(), Dtos.BookingRequest[].class));
+        } catch (Exception e) {
+            logger.error("Failed to decode booking payload from DB for ref: {}", payment.getReferenceId(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Drops the in-memory copy of a reference's basket. The row itself is left
+     * for {@link PendingPaymentSweeper}, which removes it once it is terminal.
+     */
     public void removePendingBooking(String referenceId) {
-        pendingBookings.remove(referenceId);
         if (referenceId != null) {
-            pendingPaymentRepository.deleteById(referenceId);
+            pendingBookings.invalidate(referenceId);
         }
     }
 
@@ -364,26 +434,166 @@ public class PaymentService {
     @Autowired
     private com.eventbooking.repository.BookingRepository bookingRepository;
 
-    @Transactional
-    public boolean processSuccessfulPayment(String referenceId) {
+    @Value("${payment.finalize.verify-lease-ms:60000}")
+    private long verifyLeaseMs;
+
+    /** Outcome of finalizing a reference. */
+    public enum FinalizeResult {
+        /** Seats are booked for the reference (now or by an earlier finalizer). */
+        BOOKED,
+        /** Another finalizer owns the reference; its result arrives through the payment update channel. */
+        PROCESSING,
+        NOT_PAID,
+        /** The wallet could not be asked (see {@link VerificationResult#UNKNOWN}); try again later. */
+        UNKNOWN,
+        /** Paid, but the seats could not be booked; the reference is left FAILED for a refund. */
+        REFUND_DUE,
+        /** No such reference. */
+        FAILED
+    }
+
+    /**
+     * Finalizes a paid reference in two phases so no DB connection is held
+     * during the wallet round trip:
+     * 1. claim the pending payment (PENDING -> VERIFYING) and verify with the
+     * wallet outside any transaction;
+     * 2. book the seats in a short transaction that also moves the payment to
+     * BOOKED, so concurrent finalizers (webhook, frontend, direct transfer)
+     * book at most once.
+     * A caller that finds the reference claimed by another finalizer gets
+     * PROCESSING straight away instead of waiting on it.
+     * <p>
+     * A reference already EXPIRED (the reconciler gave up on it) or FAILED can
+     * still be paid late. It is claimed and verified the same way and booked
+     * if the seats are still free; otherwise it stays FAILED, which is the
+     * record staff refund from.
+     */
+    public FinalizeResult finalizePayment(String referenceId) {
+        return finalizeReference(referenceId, false);
+    }
+
+    /**
+     * Same as {@link #finalizePayment} for a reference the caller has just
+     * verified as PAID itself (the reconciler), so the wallet is not asked twice.
+     */
+    public FinalizeResult finalizeVerifiedPayment(String referenceId) {
+        return finalizeReference(referenceId, true);
+    }
+
+    private FinalizeResult finalizeReference(String referenceId, boolean alreadyVerified) {
+        if (referenceId == null) {
+            return FinalizeResult.FAILED;
+        }
+
         // Idempotency check: Have we already booked this reference?
         if (bookingRepository.existsByPaymentId(referenceId)) {
             logger.info("Payment already processed for reference: {}", referenceId);
-            return true;
+            return FinalizeResult.BOOKED;
         }
 
-        if (finalizeWalletPayment(referenceId)) {
-            List<Dtos.BookingRequest> requests = getPendingBookings(referenceId);
-            if (requests != null && !requests.isEmpty()) {
-                for (Dtos.BookingRequest br : requests) {
-                    br.setPaymentId(referenceId); // Link reference for idempotency and tracking
-                    bookingService.bookSeats(br);
-                }
-                removePendingBooking(referenceId);
-                return true;
+        LocalDateTime now = LocalDateTime.now();
+        // State to fall back to if the wallet does not confirm the payment
+        String unpaidState = PendingPayment.STATUS_PENDING;
+        if (pendingPaymentRepository.claimForVerification(referenceId,
+                now.minusNanos(verifyLeaseMs * 1_000_000L), now) == 0) {
+            unpaidState = claimSettled(referenceId, now);
+            if (unpaidState == null) {
+                return concurrentFinalizerState(referenceId);
             }
-            logger.warn("No pending bookings found for reference: {}", referenceId);
         }
-        return false;
+        boolean late = !PendingPayment.STATUS_PENDING.equals(unpaidState);
+
+        // Phase 1: external verification, no transaction open
+        VerificationResult verification = alreadyVerified ? VerificationResult.PAID : verifyReference(referenceId);
+        if (verification != VerificationResult.PAID) {
+            pendingPaymentRepository.transition(referenceId, PendingPayment.STATUS_VERIFYING,
+                    unpaidState, LocalDateTime.now());
+            if (late && verification == VerificationResult.NOT_PAID) {
+                // Already settled without payment, and still unpaid: nothing changes
+                return PendingPayment.STATUS_FAILED.equals(unpaidState) ? FinalizeResult.REFUND_DUE
+                        : FinalizeResult.NOT_PAID;
+            }
+            return verification == VerificationResult.UNKNOWN ? FinalizeResult.UNKNOWN : FinalizeResult.NOT_PAID;
+        }
+        pendingPaymentRepository.transition(referenceId, PendingPayment.STATUS_VERIFYING,
+                PendingPayment.STATUS_VERIFIED, LocalDateTime.now());
+        if (late) {
+            logger.warn("Payment for {} reference {} arrived late; booking it if the seats are still free",
+                    unpaidState, referenceId);
+        }
+
+        List<Dtos.BookingRequest> requests = getPendingBookings(referenceId);
+        if (requests == null || requests.isEmpty()) {
+            return refundDue(referenceId, unpaidState, "no pending bookings found", null);
+        }
+
+        // Phase 2: short booking transaction
+        try {
+            bookingService.confirmPaidBookings(referenceId, requests);
+        } catch (RuntimeException e) {
+            return refundDue(referenceId, unpaidState, "booking failed", e);
+        }
+        pendingBookings.invalidate(referenceId);
+        if (late) {
+            meterRegistry.counter("payment.late", "outcome", "booked").increment();
+        }
+        return FinalizeResult.BOOKED;
+    }
+
+    /**
+     * Claims an EXPIRED or FAILED reference for verification, returning the
+     * state it was in, or null if it was in neither.
+     */
+    private String claimSettled(String referenceId, LocalDateTime now) {
+        for (String state : List.of(PendingPayment.STATUS_EXPIRED, PendingPayment.STATUS_FAILED)) {
+            if (pendingPaymentRepository.transition(referenceId, state, PendingPayment.STATUS_VERIFYING, now) == 1) {
+                return state;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Paid but not booked: leaves the reference FAILED, the state staff refund
+     * from. A reference that was FAILED already is only logged, not counted again.
+     */
+    private FinalizeResult refundDue(String referenceId, String previousState, String reason,
+            RuntimeException cause) {
+        pendingPaymentRepository.transition(referenceId, PendingPayment.STATUS_VERIFIED,
+                PendingPayment.STATUS_FAILED, LocalDateTime.now());
+        if (PendingPayment.STATUS_FAILED.equals(previousState)) {
+            logger.info("Reference {} is still paid but not bookable ({})", referenceId, reason);
+            return FinalizeResult.REFUND_DUE;
+        }
+        boolean late = PendingPayment.STATUS_EXPIRED.equals(previousState);
+        meterRegistry.counter("payment.refund_due", "late", String.valueOf(late)).increment();
+        if (late) {
+            meterRegistry.counter("payment.late", "outcome", "refund_due").increment();
+        }
+        logger.warn("Reference {} is paid but not booked ({}); recorded for refund", referenceId, reason, cause);
+        return FinalizeResult.REFUND_DUE;
+    }
+
+    public boolean processSuccessfulPayment(String referenceId) {
+        return finalizePayment(referenceId) == FinalizeResult.BOOKED;
+    }
+
+    /** Where a reference claimed by someone else stands; one read, no waiting. */
+    private FinalizeResult concurrentFinalizerState(String referenceId) {
+        PendingPayment payment = pendingPaymentRepository.findById(referenceId).orElse(null);
+        if (payment == null) {
+            logger.warn("No pending payment found for reference: {}", referenceId);
+            return bookingRepository.existsByPaymentId(referenceId) ? FinalizeResult.BOOKED : FinalizeResult.FAILED;
+        }
+        String status = payment.getStatus();
+        if (PendingPayment.STATUS_BOOKED.equals(status)) {
+            return FinalizeResult.BOOKED;
+        }
+        if (PendingPayment.STATUS_VERIFYING.equals(status) || PendingPayment.STATUS_VERIFIED.equals(status)
+                || PendingPayment.STATUS_PENDING.equals(status)) {
+            return FinalizeResult.PROCESSING;
+        }
+        logger.info("Reference {} settled as {} by a concurrent finalizer", referenceId, status);
+        return PendingPayment.STATUS_FAILED.equals(status) ? FinalizeResult.REFUND_DUE : FinalizeResult.NOT_PAID;
     }
 }
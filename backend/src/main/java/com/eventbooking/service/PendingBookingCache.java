@@ -0,0 +1,117 @@
+package com.eventbooking.service;
+
+import com.eventbooking.dto.Dtos;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded, time-evicting cache of the booking requests behind a pending
+ * payment. It only saves a database read on the finalize path; the
+ * pending_payments row stays the source of truth, so anything evicted here is
+ * simply reloaded.
+ */
+@Component
+public class PendingBookingCache {
+
+    private static final class Entry {
+        final List<Dtos.BookingRequest> requests;
+        final long expiresAt;
+
+        Entry(List<Dtos.BookingRequest> requests, long expiresAt) {
+            this.requests = requests;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final int maxEntries;
+    private final long ttlMs;
+
+    // Insertion order with a fixed TTL is also expiry order, so the eldest entry is always the next to expire
+    private final LinkedHashMap<String, Entry> entries;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter expiredEvictions;
+
+    public PendingBookingCache(MeterRegistry meterRegistry,
+            @Value("${payment.pending-cache.max-entries:10000}") int maxEntries,
+            @Value("${payment.pending-cache.ttl-minutes:30}") long ttlMinutes) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlMs = ttlMinutes * 60_000L;
+        this.hits = meterRegistry.counter("payment.pending.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("payment.pending.cache.requests", "result", "miss");
+        this.sizeEvictions = meterRegistry.counter("payment.pending.cache.evictions", "cause", "size");
+        this.expiredEvictions = meterRegistry.counter("payment.pending.cache.evictions", "cause", "expired");
+        this.entries = new LinkedHashMap<>(256, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > PendingBookingCache.this.maxEntries) {
+                    sizeEvictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        Gauge.builder("payment.pending.cache.size", this, PendingBookingCache::size)
+                .description("Pending payment baskets held in memory")
+                .register(meterRegistry);
+    }
+
+    public synchronized void put(String referenceId, List<Dtos.BookingRequest> requests) {
+        // Remove first so a re-put moves to the tail and keeps the map in expiry order
+        entries.remove(referenceId);
+        entries.put(referenceId, new Entry(List.copyOf(requests), System.currentTimeMillis() + ttlMs));
+    }
+
+    /** Returns the cached requests, or null on a miss or an expired entry. */
+    public synchronized List<Dtos.BookingRequest> get(String referenceId) {
+        Entry entry = entries.get(referenceId);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            entries.remove(referenceId);
+            expiredEvictions.increment();
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.requests;
+    }
+
+    public synchronized void invalidate(String referenceId) {
+        entries.remove(referenceId);
+    }
+
+    /** Drops expired entries from the head of the map; returns how many were removed. */
+    public synchronized int evictExpired() {
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().expiresAt > now) {
+                break;
+            }
+            it.remove();
+            removed++;
+        }
+        if (removed > 0) {
+            expiredEvictions.increment(removed);
+        }
+        return removed;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
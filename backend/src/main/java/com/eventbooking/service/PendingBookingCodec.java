@@ -0,0 +1,108 @@
+package com.eventbooking.service;
+
+import com.eventbooking.dto.Dtos;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Compact binary encoding of the booking requests parked with a pending
+ * payment. UUIDs are written as two longs and strings as modified UTF-8, so
+ * a typical basket is a fraction of its JSON size and decodes without a
+ * reflective Jackson pass.
+ */
+final class PendingBookingCodec {
+
+    private static final byte VERSION = 1;
+
+    private PendingBookingCodec() {
+    }
+
+    static byte[] encode(List<Dtos.BookingRequest> requests) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + requests.size() * 96);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeInt(requests.size());
+            for (Dtos.BookingRequest request : requests) {
+                writeUuid(out, request.getEventId());
+                writeUuid(out, request.getEventCategoryId());
+                writeUuid(out, request.getUserId());
+                out.writeInt(request.getSeats());
+                List<String> seatIds = request.getSeatIds();
+                out.writeInt(seatIds == null ? -1 : seatIds.size());
+                if (seatIds != null) {
+                    for (String seatId : seatIds) {
+                        writeString(out, seatId);
+                    }
+                }
+                writeString(out, request.getPaymentId());
+                writeString(out, request.getRazorpayOrderId());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static List<Dtos.BookingRequest> decode(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new IllegalStateException("Unsupported pending booking encoding version " + version);
+            }
+            int count = in.readInt();
+            List<Dtos.BookingRequest> requests = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Dtos.BookingRequest request = new Dtos.BookingRequest();
+                request.setEventId(readUuid(in));
+                request.setEventCategoryId(readUuid(in));
+                request.setUserId(readUuid(in));
+                request.setSeats(in.readInt());
+                int seatCount = in.readInt();
+                if (seatCount >= 0) {
+                    List<String> seatIds = new ArrayList<>(seatCount);
+                    for (int s = 0; s < seatCount; s++) {
+                        seatIds.add(readString(in));
+                    }
+                    request.setSeatIds(seatIds);
+                }
+                request.setPaymentId(readString(in));
+                request.setRazorpayOrderId(readString(in));
+                requests.add(request);
+            }
+            return requests;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.getMostSignificantBits());
+            out.writeLong(value.getLeastSignificantBits());
+        }
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,63 @@
+package com.eventbooking.service;
+
+import com.eventbooking.model.PendingPayment;
+import com.eventbooking.repository.PendingPaymentRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Housekeeping for pending payments, off the request path. Only rows that
+ * reached a terminal state are deleted; unresolved PENDING rows belong to
+ * {@link PaymentReconciliationService}, and FAILED rows (paid but not booked)
+ * are kept longer so they can be refunded by hand.
+ */
+@Service
+public class PendingPaymentSweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(PendingPaymentSweeper.class);
+
+    @Autowired
+    private PendingPaymentRepository pendingPaymentRepository;
+
+    @Autowired
+    private PendingBookingCache pendingBookingCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${payment.cleanup.retention-hours:24}")
+    private long retentionHours;
+
+    @Value("${payment.cleanup.failed-retention-days:7}")
+    private long failedRetentionDays;
+
+    @Scheduled(fixedDelayString = "${payment.cleanup.interval-ms:600000}",
+            initialDelayString = "${payment.cleanup.initial-delay-ms:60000}")
+    public void sweep() {
+        pendingBookingCache.evictExpired();
+
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            int completed = pendingPaymentRepository.deleteByStatusesBefore(
+                    List.of(PendingPayment.STATUS_BOOKED, PendingPayment.STATUS_EXPIRED),
+                    now.minusHours(retentionHours));
+            int failed = pendingPaymentRepository.deleteByStatusesBefore(
+                    List.of(PendingPayment.STATUS_FAILED), now.minusDays(failedRetentionDays));
+            meterRegistry.counter("payment.cleanup.deleted", "state", "completed").increment(completed);
+            meterRegistry.counter("payment.cleanup.deleted", "state", "failed").increment(failed);
+            if (completed + failed > 0) {
+                logger.info("Pending payment sweep removed {} completed and {} failed rows", completed, failed);
+            }
+        } catch (Exception e) {
+            logger.error("Pending payment sweep failed", e);
+        }
+    }
+}
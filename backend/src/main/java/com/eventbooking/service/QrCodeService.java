@@ -0,0 +1,95 @@
+package com.eventbooking.service;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Generates ticket QR codes in-process. The code encodes the booking's signed
+ * ticket token (see {@link TicketTokenService}), which the scanner posts to
+ * {@code /api/bookings/scan} or verifies offline; PNGs depend only on that
+ * content, so they are kept in a bounded LRU cache keyed by it.
+ */
+@Service
+public class QrCodeService {
+
+    private static final Map<EncodeHintType, Object> HINTS = Map.of(
+            EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.M,
+            EncodeHintType.MARGIN, 1);
+
+    private final int size;
+    private final Map<String, byte[]> cache;
+    private final Counter hits;
+    private final Counter misses;
+
+    public QrCodeService(MeterRegistry meterRegistry,
+            @Value("${qr.size-px:300}") int size,
+            @Value("${qr.cache-size:2048}") int cacheSize) {
+        this.size = size;
+        int capacity = Math.max(1, cacheSize);
+        this.cache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                return size() > capacity;
+            }
+        };
+        this.hits = meterRegistry.counter("qr.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("qr.cache.requests", "result", "miss");
+    }
+
+    /** PNG bytes of the QR code for a ticket token. Callers must not modify the returned array. */
+    public byte[] ticketPng(String content) {
+        synchronized (cache) {
+            byte[] cached = cache.get(content);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+        }
+        misses.increment();
+        byte[] png = render(content);
+        synchronized (cache) {
+            cache.put(content, png);
+        }
+        return png;
+    }
+
+    private byte[] render(String content) {
+        try {
+            BitMatrix matrix = new QRCodeWriter().encode(content, BarcodeFormat.QR_CODE, size, size, HINTS);
+            int width = matrix.getWidth();
+            int height = matrix.getHeight();
+            // 1-bit image: sample 0 is black, 1 is white
+            BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY);
+            WritableRaster raster = image.getRaster();
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    raster.setSample(x, y, 0, matrix.get(x, y) ? 0 : 1);
+                }
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream(2048);
+            ImageIO.write(image, "png", out);
+            return out.toByteArray();
+        } catch (WriterException e) {
+            throw new IllegalStateException("Cannot encode QR code", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
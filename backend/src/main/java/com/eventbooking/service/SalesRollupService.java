@@ -0,0 +1,232 @@
+package com.eventbooking.service;
+
+import com.eventbooking.dto.SalesPoint;
+import com.eventbooking.model.Booking;
+import com.eventbooking.model.EventCategory;
+import com.eventbooking.model.SalesRollup;
+import com.eventbooking.repository.EventCategoryRepository;
+import com.eventbooking.repository.SalesRollupRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Keeps {@code sales_rollups} current so sales curves are answered from a few
+ * hundred pre-summed rows instead of a bookings scan.
+ * <p>
+ * Every booking adds to its minute, hour and day bucket in the booking's own
+ * transaction (one batched upsert, under the category lock the booking
+ * already holds); a cancellation subtracts from the same buckets. Fine
+ * buckets are only needed for recent history, so a scheduled compaction
+ * drops minute buckets after {@code sales.rollup.minute-retention-days} and
+ * hour buckets after {@code sales.rollup.hour-retention-days}; day buckets
+ * are kept. {@link #rebuild} recomputes one event from its bookings, for
+ * events booked before the rollups existed.
+ */
+@Service
+public class SalesRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesRollupService.class);
+
+    // Bound one response: a year of hours, or two days of minutes
+    private static final int MAX_POINTS = 9000;
+
+    private static final String POSTGRES_UPSERT = "INSERT INTO sales_rollups "
+            + "(event_id, category_id, granularity, bucket_start, bookings, seats, revenue, cancellations) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?) "
+            + "ON CONFLICT (event_id, category_id, granularity, bucket_start) DO UPDATE SET "
+            + "bookings = sales_rollups.bookings + EXCLUDED.bookings, seats = sales_rollups.seats + EXCLUDED.seats, "
+            + "revenue = sales_rollups.revenue + EXCLUDED.revenue, "
+            + "cancellations = sales_rollups.cancellations + EXCLUDED.cancellations";
+
+    // Standard SQL for other databases (H2 in local development)
+    private static final String MERGE_UPSERT = "MERGE INTO sales_rollups t USING (VALUES (CAST(? AS UUID), "
+            + "CAST(? AS UUID), CAST(? AS VARCHAR(8)), CAST(? AS TIMESTAMP), CAST(? AS BIGINT), CAST(? AS BIGINT), "
+            + "CAST(? AS NUMERIC(14, 2)), CAST(? AS BIGINT))) "
+            + "AS s(event_id, category_id, granularity, bucket_start, bookings, seats, revenue, cancellations) "
+            + "ON t.event_id = s.event_id AND t.category_id = s.category_id AND t.granularity = s.granularity "
+            + "AND t.bucket_start = s.bucket_start "
+            + "WHEN MATCHED THEN UPDATE SET bookings = t.bookings + s.bookings, seats = t.seats + s.seats, "
+            + "revenue = t.revenue + s.revenue, cancellations = t.cancellations + s.cancellations "
+            + "WHEN NOT MATCHED THEN INSERT (event_id, category_id, granularity, bucket_start, bookings, seats, "
+            + "revenue, cancellations) VALUES (s.event_id, s.category_id, s.granularity, s.bucket_start, "
+            + "s.bookings, s.seats, s.revenue, s.cancellations)";
+
+    private static final String REBUILD = "INSERT INTO sales_rollups "
+            + "(event_id, category_id, granularity, bucket_start, bookings, seats, revenue, cancellations) "
+            + "SELECT c.event_id, b.event_category_id, '%1$s', DATE_TRUNC('%2$s', b.booking_time), COUNT(*), "
+            + "SUM(CASE WHEN b.status = 'CANCELLED' THEN 0 ELSE b.seats_booked END), "
+            + "SUM(CASE WHEN b.status = 'CANCELLED' THEN 0 ELSE b.seats_booked * c.price END), "
+            + "SUM(CASE WHEN b.status = 'CANCELLED' THEN 1 ELSE 0 END) "
+            + "FROM bookings b JOIN event_categories c ON c.id = b.event_category_id "
+            + "WHERE c.event_id = ? AND b.booking_time >= ? "
+            + "GROUP BY c.event_id, b.event_category_id, DATE_TRUNC('%2$s', b.booking_time)";
+
+    @Autowired
+    private SalesRollupRepository salesRollupRepository;
+
+    @Autowired
+    private EventCategoryRepository eventCategoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${sales.rollup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${sales.rollup.minute-retention-days:2}")
+    private long minuteRetentionDays;
+
+    @Value("${sales.rollup.hour-retention-days:90}")
+    private long hourRetentionDays;
+
+    private String upsertSql;
+
+    @PostConstruct
+    public void init() {
+        try (Connection connection = dataSource.getConnection()) {
+            String product = connection.getMetaData().getDatabaseProductName();
+            upsertSql = "PostgreSQL".equalsIgnoreCase(product) ? POSTGRES_UPSERT : MERGE_UPSERT;
+        } catch (SQLException e) {
+            logger.warn("Could not detect the database; assuming PostgreSQL for sales rollups");
+            upsertSql = POSTGRES_UPSERT;
+        }
+    }
+
+    /** Adds a new booking to its buckets; call inside the booking's transaction. */
+    public void bookingCreated(Booking booking) {
+        boolean cancelled = "CANCELLED".equals(booking.getStatus());
+        apply(booking, 1, cancelled ? 0 : booking.getSeatsBooked(), cancelled ? BigDecimal.ZERO : revenue(booking),
+                cancelled ? 1 : 0);
+    }
+
+    /** Takes a cancelled booking's seats and revenue back out of the buckets it was sold in. */
+    public void bookingCancelled(Booking booking) {
+        apply(booking, 0, -booking.getSeatsBooked(), revenue(booking).negate(), 1);
+    }
+
+    private void apply(Booking booking, long bookings, long seats, BigDecimal revenue, long cancellations) {
+        if (!enabled || booking.getBookingTime() == null) {
+            return; // Pre-migration bookings have no time to place them by; rebuild skips them too
+        }
+        EventCategory category = booking.getEventCategory();
+        UUID eventId = category.getEvent().getId();
+        List<Object[]> rows = new ArrayList<>(3);
+        for (String granularity : List.of(SalesRollup.GRANULARITY_MINUTE, SalesRollup.GRANULARITY_HOUR,
+                SalesRollup.GRANULARITY_DAY)) {
+            rows.add(new Object[] { eventId, category.getId(), granularity,
+                    Timestamp.valueOf(truncate(booking.getBookingTime(), granularity)), bookings, seats, revenue,
+                    cancellations });
+        }
+        jdbcTemplate.batchUpdate(upsertSql, rows);
+        meterRegistry.counter("sales.rollup.updates").increment();
+    }
+
+    private static BigDecimal revenue(Booking booking) {
+        BigDecimal price = booking.getEventCategory().getPrice();
+        return price == null ? BigDecimal.ZERO : price.multiply(BigDecimal.valueOf(booking.getSeatsBooked()));
+    }
+
+    static LocalDateTime truncate(LocalDateTime time, String granularity) {
+        return switch (granularity) {
+            case SalesRollup.GRANULARITY_MINUTE -> time.truncatedTo(ChronoUnit.MINUTES);
+            case SalesRollup.GRANULARITY_HOUR -> time.truncatedTo(ChronoUnit.HOURS);
+            case SalesRollup.GRANULARITY_DAY -> time.truncatedTo(ChronoUnit.DAYS);
+            default -> throw new IllegalArgumentException("Unknown granularity: " + granularity);
+        };
+    }
+
+    private static Duration bucketLength(String granularity) {
+        return switch (granularity) {
+            case SalesRollup.GRANULARITY_MINUTE -> Duration.ofMinutes(1);
+            case SalesRollup.GRANULARITY_HOUR -> Duration.ofHours(1);
+            default -> Duration.ofDays(1);
+        };
+    }
+
+    /** Sales curve of an event (or one of its categories) between {@code from} and {@code to}. */
+    @Transactional(readOnly = true)
+    public List<SalesPoint> series(UUID eventId, UUID categoryId, String granularity, LocalDateTime from,
+            LocalDateTime to) {
+        String unit = granularity.toUpperCase(Locale.ROOT);
+        if (!List.of(SalesRollup.GRANULARITY_MINUTE, SalesRollup.GRANULARITY_HOUR, SalesRollup.GRANULARITY_DAY)
+                .contains(unit)) {
+            throw new IllegalArgumentException("granularity must be minute, hour or day");
+        }
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        if (Duration.between(from, to).dividedBy(bucketLength(unit)) > MAX_POINTS) {
+            throw new IllegalArgumentException("Range too long for " + unit.toLowerCase(Locale.ROOT)
+                    + " buckets; use a coarser granularity");
+        }
+        LocalDateTime start = truncate(from, unit);
+        return categoryId == null
+                ? salesRollupRepository.findSeries(eventId, unit, start, to)
+                : salesRollupRepository.findCategorySeries(eventId, categoryId, unit, start, to);
+    }
+
+    /**
+     * Recomputes an event's rollups from its bookings. Takes the event's
+     * category locks so no booking commits into the buckets while they are
+     * rewritten.
+     */
+    @Transactional
+    public void rebuild(UUID eventId) {
+        for (EventCategory category : eventCategoryRepository.findByEventId(eventId)) {
+            eventCategoryRepository.findByIdWithLock(category.getId());
+        }
+        salesRollupRepository.deleteByEventId(eventId);
+        LocalDateTime now = LocalDateTime.now();
+        rebuildLevel(eventId, SalesRollup.GRANULARITY_MINUTE, "minute", now.minusDays(minuteRetentionDays));
+        rebuildLevel(eventId, SalesRollup.GRANULARITY_HOUR, "hour", now.minusDays(hourRetentionDays));
+        rebuildLevel(eventId, SalesRollup.GRANULARITY_DAY, "day", LocalDateTime.of(1970, 1, 1, 0, 0));
+        logger.info("Rebuilt sales rollups for event {}", eventId);
+    }
+
+    private void rebuildLevel(UUID eventId, String granularity, String truncUnit, LocalDateTime since) {
+        jdbcTemplate.update(String.format(REBUILD, granularity, truncUnit), eventId,
+                Timestamp.valueOf(truncate(since, granularity)));
+    }
+
+    /** Drops minute and hour buckets past their retention; day buckets cover that history. */
+    @Scheduled(fixedDelayString = "${sales.rollup.compaction-interval-ms:3600000}")
+    @Transactional
+    public void compact() {
+        LocalDateTime now = LocalDateTime.now();
+        int minutes = salesRollupRepository.deleteOlderThan(SalesRollup.GRANULARITY_MINUTE,
+                truncate(now.minusDays(minuteRetentionDays), SalesRollup.GRANULARITY_MINUTE));
+        int hours = salesRollupRepository.deleteOlderThan(SalesRollup.GRANULARITY_HOUR,
+                truncate(now.minusDays(hourRetentionDays), SalesRollup.GRANULARITY_HOUR));
+        if (minutes + hours > 0) {
+            logger.info("Compacted sales rollups: {} minute and {} hour buckets removed", minutes, hours);
+            meterRegistry.counter("sales.rollup.compacted").increment(minutes + hours);
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package com.eventbooking.service;
 
+import com.eventbooking.util.SampledLogger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
@@ -7,6 +10,9 @@ import org.springframework.stereotype.Service;
 @Service
 public class SocketIOService {
 
+    private static final Logger logger = LoggerFactory.getLogger(SocketIOService.class);
+    private static final SampledLogger sentLog = new SampledLogger(logger, "stomp.sent", 5, 20);
+
     @Autowired
     private SimpMessagingTemplate messagingTemplate;
 
@@ -15,10 +21,11 @@ public class SocketIOService {
             try {
                 // Broadcast specifically to the topic for this order
                 messagingTemplate.convertAndSend("/topic/payment/" + orderId, message);
-                System.out.println("Sent STOMP update for order: " + orderId);
+                sentLog.debug("Sent STOMP update for order {}", orderId);
             } catch (Exception e) {
-                System.err.println("Failed to send STOMP update: " + e.getMessage());
-                e.printStackTrace();
+                logger.warn("Failed to send STOMP update for order {}: {}", orderId, e.getMessage());
+                // Propagate so the outbox relay retries the update
+                throw e;
             }
         }
     }
@@ -0,0 +1,243 @@
+package com.eventbooking.service;
+
+import com.eventbooking.dto.TicketFacts;
+import com.eventbooking.repository.BookingRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Issues and checks signed ticket tokens, the content of ticket QR codes.
+ * <p>
+ * A token states everything a gate needs to admit someone (booking, event,
+ * category, seat count, expiry) and carries an Ed25519 signature, so gate
+ * devices verify it offline with the public keys from
+ * {@code GET /api/tickets/keys} and never look the booking up per scan.
+ * Format: {@code ET1.<payload>.<signature>}, both base64url without padding;
+ * the 63-byte payload is version (1), key id (4), booking id (16), event id
+ * (16), category id (16), seats (2, unsigned) and expiry (8, epoch seconds),
+ * big-endian. The key id is the first 4 bytes of the SHA-256 of the encoded
+ * public key, so keys can be rotated while older tickets stay verifiable
+ * through {@code tickets.signing.previous-public-keys}.
+ */
+@Service
+public class TicketTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TicketTokenService.class);
+
+    public static final String PREFIX = "ET1.";
+    public static final String ALGORITHM = "Ed25519";
+
+    private static final byte VERSION = 1;
+    private static final int PAYLOAD_LENGTH = 1 + 4 + 16 * 3 + 2 + 8;
+
+    /** What a verified token says; {@code expiresAt} is in epoch seconds. */
+    public record Claims(String keyId, UUID bookingId, UUID eventId, UUID categoryId, int seats, long expiresAt) {
+
+        public boolean expiredAt(Instant time) {
+            return time.getEpochSecond() > expiresAt;
+        }
+    }
+
+    /** A public key gates should trust, as published by the keys endpoint. */
+    public record VerificationKey(String keyId, String algorithm, String publicKey) {
+    }
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${tickets.signing.private-key:}")
+    private String privateKeyBase64;
+
+    @Value("${tickets.signing.public-key:}")
+    private String publicKeyBase64;
+
+    @Value("${tickets.signing.previous-public-keys:}")
+    private List<String> previousPublicKeys;
+
+    @Value("${tickets.token.grace-hours:12}")
+    private long graceHours;
+
+    @Value("${tickets.signing.allow-temporary-key:false}")
+    private boolean allowTemporaryKey;
+
+    private PrivateKey signingKey;
+    private String signingKeyId;
+    private final Map<String, PublicKey> verificationKeys = new LinkedHashMap<>();
+
+    @PostConstruct
+    public void init() throws GeneralSecurityException {
+        KeyFactory keyFactory = KeyFactory.getInstance(ALGORITHM);
+        PublicKey publicKey;
+        if (privateKeyBase64.isBlank() || publicKeyBase64.isBlank()) {
+            // A per-node throwaway key breaks every emailed ticket on restart and across nodes,
+            // which only shows at the gate: refuse to start unless a local profile allows it
+            if (!allowTemporaryKey) {
+                throw new IllegalStateException("Ticket signing keys are not set; set TICKET_SIGNING_PRIVATE_KEY "
+                        + "and TICKET_SIGNING_PUBLIC_KEY (base64 PKCS#8 / X.509 Ed25519 keys)");
+            }
+            KeyPair pair = KeyPairGenerator.getInstance(ALGORITHM).generateKeyPair();
+            signingKey = pair.getPrivate();
+            publicKey = pair.getPublic();
+            logger.warn("No ticket signing key configured; using a temporary key (local profile only)");
+        } else {
+            signingKey = keyFactory.generatePrivate(new PKCS8EncodedKeySpec(Base64.getDecoder().decode(
+                    privateKeyBase64.trim())));
+            publicKey = keyFactory.generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(
+                    publicKeyBase64.trim())));
+        }
+        signingKeyId = keyId(publicKey);
+        verificationKeys.put(signingKeyId, publicKey);
+        for (String previous : previousPublicKeys) {
+            if (!previous.isBlank()) {
+                PublicKey key = keyFactory.generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(
+                        previous.trim())));
+                verificationKeys.putIfAbsent(keyId(key), key);
+            }
+        }
+        logger.info("Ticket tokens signed with key {} ({} verification keys)", signingKeyId, verificationKeys.size());
+    }
+
+    private static String keyId(PublicKey key) throws GeneralSecurityException {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getEncoded());
+        return HexFormat.of().formatHex(digest, 0, 4);
+    }
+
+    public List<VerificationKey> verificationKeys() {
+        List<VerificationKey> keys = new ArrayList<>(verificationKeys.size());
+        verificationKeys.forEach((id, key) -> keys.add(new VerificationKey(id, ALGORITHM,
+                Base64.getEncoder().encodeToString(key.getEncoded()))));
+        return keys;
+    }
+
+    /** Token for a booking, or empty if there is no such booking. One projection query, no entity graph. */
+    public Optional<String> tokenFor(UUID bookingId) {
+        return bookingRepository.findTicketFacts(bookingId).map(this::issue);
+    }
+
+    /** Hex of the first 16 bytes of the token's SHA-256; stable for a token whatever its format. */
+    public String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public String issue(TicketFacts facts) {
+        LocalDateTime validUntil = (facts.getEventDate() != null ? facts.getEventDate() : LocalDateTime.now())
+                .plusHours(graceHours);
+        long expiresAt = validUntil.atZone(ZoneId.systemDefault()).toEpochSecond();
+
+        ByteBuffer payload = ByteBuffer.allocate(PAYLOAD_LENGTH);
+        payload.put(VERSION);
+        payload.put(HexFormat.of().parseHex(signingKeyId));
+        putUuid(payload, facts.getBookingId());
+        putUuid(payload, facts.getEventId());
+        putUuid(payload, facts.getCategoryId());
+        payload.putShort((short) Math.min(facts.getSeatsBooked(), 0xFFFF));
+        payload.putLong(expiresAt);
+        byte[] bytes = payload.array();
+        try {
+            Signature signer = Signature.getInstance(ALGORITHM);
+            signer.initSign(signingKey);
+            signer.update(bytes);
+            Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+            meterRegistry.counter("tickets.tokens.issued").increment();
+            return PREFIX + encoder.encodeToString(bytes) + "." + encoder.encodeToString(signer.sign());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot sign ticket token", e);
+        }
+    }
+
+    /**
+     * Checks a token's format, key and signature. Expiry is left to the caller,
+     * which knows when the ticket was presented.
+     *
+     * @throws IllegalArgumentException if the token is malformed, signed with an unknown key or tampered with
+     */
+    public Claims verify(String token) {
+        if (token == null || !token.startsWith(PREFIX)) {
+            throw new IllegalArgumentException("Not a ticket token");
+        }
+        int dot = token.indexOf('.', PREFIX.length());
+        byte[] bytes;
+        byte[] signature;
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            bytes = decoder.decode(token.substring(PREFIX.length(), dot < 0 ? token.length() : dot)
+                    .getBytes(StandardCharsets.US_ASCII));
+            signature = dot < 0 ? new byte[0] : decoder.decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed ticket token");
+        }
+        if (bytes.length != PAYLOAD_LENGTH || bytes[0] != VERSION) {
+            throw new IllegalArgumentException("Unsupported ticket token");
+        }
+        ByteBuffer payload = ByteBuffer.wrap(bytes);
+        payload.get();
+        byte[] kid = new byte[4];
+        payload.get(kid);
+        String keyId = HexFormat.of().formatHex(kid);
+        PublicKey key = verificationKeys.get(keyId);
+        if (key == null) {
+            throw new IllegalArgumentException("Ticket signed with an unknown key");
+        }
+        try {
+            Signature verifier = Signature.getInstance(ALGORITHM);
+            verifier.initVerify(key);
+            verifier.update(bytes);
+            if (!verifier.verify(signature)) {
+                throw new IllegalArgumentException("Invalid ticket signature");
+            }
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException("Invalid ticket signature");
+        }
+        UUID bookingId = getUuid(payload);
+        UUID eventId = getUuid(payload);
+        UUID categoryId = getUuid(payload);
+        int seats = Short.toUnsignedInt(payload.getShort());
+        return new Claims(keyId, bookingId, eventId, categoryId, seats, payload.getLong());
+    }
+
+    private static void putUuid(ByteBuffer buffer, UUID id) {
+        buffer.putLong(id.getMostSignificantBits());
+        buffer.putLong(id.getLeastSignificantBits());
+    }
+
+    private static UUID getUuid(ByteBuffer buffer) {
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
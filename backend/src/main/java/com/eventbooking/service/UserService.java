@@ -1,6 +1,6 @@
 package com.eventbooking.service;
 
-import com.eventbooking.model.Booking;
+import com.eventbooking.dto.BookingStatusTotals;
 import com.eventbooking.model.User;
 import com.eventbooking.model.UserLocation;
 import com.eventbooking.repository.BookingRepository;
@@ -33,6 +33,9 @@ public class UserService {
     @Autowired
     private org.springframework.security.crypto.password.PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private com.eventbooking.security.TokenRevocationCache tokenRevocationCache;
+
     public User getUser(UUID userId) {
         return userRepository.findById(Objects.requireNonNull(userId))
                 .orElseThrow(() -> new RuntimeException("User not found"));
@@ -77,18 +80,25 @@ public class UserService {
     }
 
     public Map<String, Object> getDashboardStats(UUID userId) {
-        List<Booking> bookings = bookingRepository.findByUser_Id(userId);
-        long totalBookings = bookings.size();
-        long confirmed = bookings.stream().filter(b -> "CONFIRMED".equals(b.getStatus())).count();
-        long cancelled = bookings.stream().filter(b -> "CANCELLED".equals(b.getStatus())).count();
-
-        // Calculate total spent (including simulated convenience fee for consistency
-        // with frontend)
-        double totalSpent = bookings.stream()
-                .filter(b -> "CONFIRMED".equals(b.getStatus()))
-                .mapToDouble(b -> b.getEventCategory().getPrice()
-                        .multiply(java.math.BigDecimal.valueOf(b.getSeatsBooked())).doubleValue() + 35.40)
-                .sum();
+        long totalBookings = 0;
+        long confirmed = 0;
+        long cancelled = 0;
+        java.math.BigDecimal confirmedSeatTotal = java.math.BigDecimal.ZERO;
+        for (BookingStatusTotals totals : bookingRepository.sumByStatusForUser(userId)) {
+            totalBookings += totals.getBookings();
+            if ("CONFIRMED".equals(totals.getStatus())) {
+                confirmed = totals.getBookings();
+                if (totals.getSeatTotal() != null) {
+                    confirmedSeatTotal = totals.getSeatTotal();
+                }
+            } else if ("CANCELLED".equals(totals.getStatus())) {
+                cancelled = totals.getBookings();
+            }
+        }
+
+        // Calculate total spent (including simulated convenience fee per booking for
+        // consistency with frontend)
+        double totalSpent = confirmedSeatTotal.doubleValue() + 35.40 * confirmed;
 
         return Map.of(
                 "totalBookings", totalBookings,
@@ -115,5 +125,7 @@ public class UserService {
     @Transactional
     public void deleteAccount(UUID userId) {
         userRepository.deleteById(Objects.requireNonNull(userId));
+        // Tokens are authenticated from their claims alone; without this they keep working until expiry
+        tokenRevocationCache.revokeAll(userId);
     }
 }
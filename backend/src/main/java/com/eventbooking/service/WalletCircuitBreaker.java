@@ -0,0 +1,202 @@
+package com.eventbooking.service;
+
+import com.eventbooking.exception.WalletUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker plus semaphore bulkhead guarding every call to the wallet
+ * service. While the breaker is open, or when all bulkhead permits are taken,
+ * calls fail immediately with {@link WalletUnavailableException} instead of
+ * parking another Tomcat thread on a slow socket.
+ */
+@Component
+public class WalletCircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(WalletCircuitBreaker.class);
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private enum Permit {
+        NORMAL, PROBE, DENIED
+    }
+
+    /** State and the time it was opened, swapped together so a reader never pairs OPEN with a stale time. */
+    private record Status(State state, long openedAt) {
+    }
+
+    private static final Status CLOSED = new Status(State.CLOSED, 0);
+
+    private final int failureThreshold;
+    private final long openDurationMs;
+    private final int halfOpenProbes;
+    private final long bulkheadMaxWaitMs;
+
+    private final AtomicReference<Status> status = new AtomicReference<>(CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicInteger probesInFlight = new AtomicInteger();
+    private final AtomicInteger probeSuccesses = new AtomicInteger();
+
+    private final Semaphore bulkhead;
+    private final MeterRegistry meterRegistry;
+
+    public WalletCircuitBreaker(MeterRegistry meterRegistry,
+            @Value("${wallet.circuit.failure-threshold:5}") int failureThreshold,
+            @Value("${wallet.circuit.open-duration-ms:30000}") long openDurationMs,
+            @Value("${wallet.circuit.half-open-probes:2}") int halfOpenProbes,
+            @Value("${wallet.bulkhead.max-concurrent:10}") int maxConcurrent,
+            @Value("${wallet.bulkhead.max-wait-ms:100}") long bulkheadMaxWaitMs) {
+        this.meterRegistry = meterRegistry;
+        this.failureThreshold = failureThreshold;
+        this.openDurationMs = openDurationMs;
+        this.halfOpenProbes = Math.max(1, halfOpenProbes);
+        this.bulkheadMaxWaitMs = bulkheadMaxWaitMs;
+        this.bulkhead = new Semaphore(maxConcurrent, true);
+
+        Gauge.builder("wallet.circuit.state", status, s -> s.get().state().ordinal())
+                .description("Wallet circuit breaker state (0=closed, 1=open, 2=half-open)")
+                .register(meterRegistry);
+        Gauge.builder("wallet.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .description("Free wallet bulkhead permits")
+                .register(meterRegistry);
+    }
+
+    public State getState() {
+        return status.get().state();
+    }
+
+    /**
+     * Runs a wallet call through the breaker and bulkhead. Client errors (4xx)
+     * count as successes for the breaker: the wallet answered, it just said no.
+     */
+    public <T> T execute(String operation, Supplier<T> call) {
+        Permit permit = acquirePermit();
+        if (permit == Permit.DENIED) {
+            count(operation, "rejected_open");
+            throw new WalletUnavailableException("Wallet service is temporarily unavailable. Please try again shortly.");
+        }
+
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire(bulkheadMaxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            if (permit == Permit.PROBE) {
+                probesInFlight.decrementAndGet();
+            }
+            count(operation, "rejected_bulkhead");
+            throw new WalletUnavailableException("Wallet service is busy. Please try again shortly.");
+        }
+
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            onSuccess(permit);
+            count(operation, "success");
+            return result;
+        } catch (HttpClientErrorException e) {
+            onSuccess(permit);
+            count(operation, "client_error");
+            throw e;
+        } catch (RuntimeException e) {
+            onFailure(permit);
+            count(operation, "failure");
+            throw e;
+        } finally {
+            bulkhead.release();
+            Timer.builder("wallet.call.duration")
+                    .tag("operation", operation)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Permit acquirePermit() {
+        Status current = status.get();
+        if (current.state() == State.CLOSED) {
+            return Permit.NORMAL;
+        }
+        if (current.state() == State.OPEN) {
+            if (System.currentTimeMillis() - current.openedAt() < openDurationMs) {
+                return Permit.DENIED;
+            }
+            if (status.compareAndSet(current, new Status(State.HALF_OPEN, current.openedAt()))) {
+                probeSuccesses.set(0);
+                probesInFlight.set(0);
+                logger.info("Wallet circuit HALF_OPEN: probing wallet service");
+            }
+        }
+        // HALF_OPEN (or lost the race to another thread that just moved it there)
+        while (true) {
+            int inFlight = probesInFlight.get();
+            State now = status.get().state();
+            if (now != State.HALF_OPEN) {
+                return now == State.CLOSED ? Permit.NORMAL : Permit.DENIED;
+            }
+            if (inFlight >= halfOpenProbes) {
+                return Permit.DENIED;
+            }
+            if (probesInFlight.compareAndSet(inFlight, inFlight + 1)) {
+                return Permit.PROBE;
+            }
+        }
+    }
+
+    private void onSuccess(Permit permit) {
+        if (permit == Permit.PROBE) {
+            probesInFlight.decrementAndGet();
+            if (probeSuccesses.incrementAndGet() >= halfOpenProbes && transition(State.HALF_OPEN, CLOSED)) {
+                consecutiveFailures.set(0);
+                logger.info("Wallet circuit CLOSED: wallet service recovered");
+            }
+        } else {
+            consecutiveFailures.set(0);
+        }
+    }
+
+    private void onFailure(Permit permit) {
+        if (permit == Permit.PROBE) {
+            probesInFlight.decrementAndGet();
+            if (transition(State.HALF_OPEN, new Status(State.OPEN, System.currentTimeMillis()))) {
+                logger.warn("Wallet circuit re-OPENED: probe call failed");
+            }
+            return;
+        }
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold
+                && transition(State.CLOSED, new Status(State.OPEN, System.currentTimeMillis()))) {
+            logger.warn("Wallet circuit OPEN after {} consecutive failures; failing fast for {} ms",
+                    failureThreshold, openDurationMs);
+        }
+    }
+
+    private boolean transition(State from, Status to) {
+        Status current = status.get();
+        return current.state() == from && status.compareAndSet(current, to);
+    }
+
+    private void count(String operation, String outcome) {
+        Counter.builder("wallet.calls")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -0,0 +1,253 @@
+package com.eventbooking.service;
+
+import com.eventbooking.model.WebhookInboxEvent;
+import com.eventbooking.repository.WebhookInboxRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durable inbox for wallet webhooks. {@link #accept} persists and
+ * deduplicates a verified delivery so the controller can acknowledge
+ * immediately; processing happens on worker lanes where every reference
+ * hashes to one single-threaded lane, so events for the same payment never
+ * run concurrently or out of order on this node.
+ */
+@Service
+public class WebhookInboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebhookInboxService.class);
+
+    @Autowired
+    private WebhookInboxRepository inboxRepository;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${webhook.inbox.workers:4}")
+    private int workerCount;
+
+    @Value("${webhook.inbox.lane-capacity:500}")
+    private int laneCapacity;
+
+    @Value("${webhook.inbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${webhook.inbox.processing-lease-ms:120000}")
+    private long processingLeaseMs;
+
+    @Value("${webhook.inbox.poll-batch-size:100}")
+    private int pollBatchSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private ThreadPoolExecutor[] lanes;
+
+    @PostConstruct
+    public void init() {
+        lanes = new ThreadPoolExecutor[Math.max(1, workerCount)];
+        for (int i = 0; i < lanes.length; i++) {
+            final String threadName = "webhook-worker-" + i;
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(laneCapacity), r -> {
+                        Thread t = new Thread(r, threadName);
+                        t.setDaemon(true);
+                        return t;
+                    });
+        }
+        Gauge.builder("webhook.inbox.queued", this, WebhookInboxService::queuedInMemory)
+                .description("Webhook events waiting on worker lanes")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+    }
+
+    /**
+     * Stores a signature-verified webhook. Returns false if the same event was
+     * already received (gateway retry or duplicate delivery).
+     */
+    public boolean accept(String payload) throws IOException {
+        JsonNode root = objectMapper.readTree(payload);
+        String eventType = root.path("event").asText();
+        String reference = root.path("reference").asText();
+        String eventId = eventIdOf(root, payload);
+
+        if (inboxRepository.existsByEventId(eventId)) {
+            meterRegistry.counter("webhook.inbox.received", "outcome", "duplicate").increment();
+            return false;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        WebhookInboxEvent event = new WebhookInboxEvent();
+        event.setEventId(eventId);
+        event.setEventType(eventType);
+        event.setReferenceId(reference);
+        event.setPayload(payload);
+        event.setReceivedAt(now);
+        event.setNextAttemptAt(now);
+        try {
+            event = inboxRepository.save(event);
+        } catch (DataIntegrityViolationException e) {
+            // Lost the race against a concurrent delivery of the same event
+            meterRegistry.counter("webhook.inbox.received", "outcome", "duplicate").increment();
+            return false;
+        }
+
+        meterRegistry.counter("webhook.inbox.received", "outcome", "accepted").increment();
+        dispatch(event.getId(), reference);
+        return true;
+    }
+
+    /**
+     * Picks up rows that were not handed to a lane (full queue, restart) or
+     * are due for a retry, and recovers rows orphaned by a dead worker.
+     */
+    @Scheduled(fixedDelayString = "${webhook.inbox.poll-interval-ms:10000}")
+    public void pollInbox() {
+        LocalDateTime now = LocalDateTime.now();
+        int released = inboxRepository.releaseStale(now.minusNanos(processingLeaseMs * 1_000_000L));
+        if (released > 0) {
+            logger.warn("Released {} stale webhook inbox rows", released);
+        }
+
+        List<UUID> due = inboxRepository.findDueIds(now, PageRequest.of(0, pollBatchSize));
+        for (UUID id : due) {
+            inboxRepository.findById(id).ifPresent(e -> dispatch(e.getId(), e.getReferenceId()));
+        }
+    }
+
+    private void dispatch(UUID inboxId, String reference) {
+        ThreadPoolExecutor lane = lanes[Math.floorMod(reference == null ? 0 : reference.hashCode(), lanes.length)];
+        try {
+            lane.execute(() -> process(inboxId));
+        } catch (RejectedExecutionException e) {
+            // Row stays RECEIVED; the poller hands it over once the lane drains
+            logger.debug("Webhook lane full, deferring inbox event {}", inboxId);
+        }
+    }
+
+    private void process(UUID inboxId) {
+        if (inboxRepository.claim(inboxId, LocalDateTime.now()) == 0) {
+            return; // Already processed, or another worker owns it
+        }
+        WebhookInboxEvent event = inboxRepository.findById(inboxId).orElse(null);
+        if (event == null) {
+            return;
+        }
+
+        try {
+            handle(event);
+            event.setStatus(WebhookInboxEvent.STATUS_PROCESSED);
+            event.setProcessedAt(LocalDateTime.now());
+            event.setLastError(null);
+            meterRegistry.counter("webhook.inbox.processed", "outcome", "processed").increment();
+        } catch (Exception e) {
+            int attempts = event.getAttempts() + 1;
+            event.setAttempts(attempts);
+            event.setLastError(e.getMessage());
+            if (attempts >= maxAttempts) {
+                event.setStatus(WebhookInboxEvent.STATUS_FAILED);
+                meterRegistry.counter("webhook.inbox.processed", "outcome", "failed").increment();
+                logger.error("Webhook inbox event {} failed permanently after {} attempts", event.getEventId(),
+                        attempts, e);
+            } else {
+                event.setStatus(WebhookInboxEvent.STATUS_RECEIVED);
+                // Exponential backoff: 2s, 4s, 8s ... capped at 5 minutes
+                long delaySeconds = Math.min(300, 1L << attempts);
+                event.setNextAttemptAt(LocalDateTime.now().plusSeconds(delaySeconds));
+                meterRegistry.counter("webhook.inbox.processed", "outcome", "retry").increment();
+                logger.warn("Webhook inbox event {} failed (attempt {}), retrying in {}s: {}", event.getEventId(),
+                        attempts, delaySeconds, e.getMessage());
+            }
+        }
+        event.setLockedAt(null);
+        inboxRepository.save(event);
+    }
+
+    private void handle(WebhookInboxEvent event) throws IOException {
+        JsonNode root = objectMapper.readTree(event.getPayload());
+        String status = root.path("status").asText();
+        String reference = event.getReferenceId();
+
+        if (!"payment.success".equals(event.getEventType()) || !"SUCCESS".equals(status)) {
+            logger.info("Ignoring webhook event {} ({} / {})", event.getEventId(), event.getEventType(), status);
+            return;
+        }
+
+        logger.info("Processing successful payment for reference: {}", reference);
+        // On success the booking transaction itself queues the SUCCESS update through the outbox
+        switch (paymentService.finalizePayment(reference)) {
+            case UNKNOWN ->
+                // The payment may well have gone through: leave the event to the inbox's retry backoff
+                throw new IllegalStateException("Wallet unavailable while verifying reference " + reference);
+            case NOT_PAID -> outboxService.paymentUpdate(reference, "FAILED", "Payment could not be verified");
+            case REFUND_DUE -> outboxService.paymentUpdate(reference, "FAILED",
+                    "Payment received but the seats are no longer available; it will be refunded");
+            case FAILED -> {
+                meterRegistry.counter("webhook.inbox.unmatched").increment();
+                logger.warn("Webhook event {} reports a payment for unknown reference {}", event.getEventId(),
+                        reference);
+            }
+            case BOOKED, PROCESSING -> {
+                // BOOKED: update already queued; PROCESSING: the other finalizer reports
+            }
+        }
+    }
+
+    private String eventIdOf(JsonNode root, String payload) {
+        String paymentId = root.path("payment_id").asText("");
+        if (!paymentId.isEmpty()) {
+            return root.path("event").asText() + ":" + paymentId;
+        }
+        // No gateway id: fall back to a content hash so byte-identical redeliveries still collapse
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(payload.getBytes(StandardCharsets.UTF_8));
+            return "sha256:" + HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private int queuedInMemory() {
+        int total = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            total += lane.getQueue().size();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,96 @@
+package com.eventbooking.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One {@link TokenBucket} per key (an email, a client IP, a user id), kept in
+ * a {@link ConcurrentHashMap} so callers never share a lock: a known key is
+ * a plain lookup plus a lock-free bucket update.
+ * <p>
+ * The map holds about {@code maxKeys} buckets. The owner's scheduled
+ * {@link #evictIdle} sweep drops refilled buckets and, if the map is still
+ * over the bound, the fullest ones. Between sweeps a new key arriving at a
+ * full map evicts the fullest of a few sampled buckets, so a flood of
+ * distinct keys cannot grow it without limit. Forgetting a key only ever
+ * makes the limiter more lenient for that key.
+ */
+public final class KeyedRateLimiter {
+
+    // Buckets inspected when a new key must make room between sweeps
+    private static final int EVICTION_SAMPLE = 8;
+
+    private final double capacity;
+    private final double ratePerSecond;
+    private final int maxKeys;
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>(256);
+
+    public KeyedRateLimiter(double capacity, double ratePerSecond, int maxKeys) {
+        this.capacity = capacity;
+        this.ratePerSecond = ratePerSecond;
+        this.maxKeys = Math.max(1, maxKeys);
+    }
+
+    /**
+     * Takes one token for {@code key}. Returns 0 when allowed, otherwise the
+     * nanoseconds until the next token (for a Retry-After header).
+     */
+    public long tryAcquire(String key) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null) {
+            // Concurrent callers may sample the same victim; retry a few times so the map stays near the bound
+            for (int attempt = 0; attempt < 4 && buckets.size() >= maxKeys; attempt++) {
+                evictOneSampled();
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(capacity, ratePerSecond));
+        }
+        return bucket.tryAcquire() ? 0 : Math.max(1, bucket.nanosUntilAvailable(1));
+    }
+
+    private void evictOneSampled() {
+        Map.Entry<String, TokenBucket> fullest = null;
+        double fullestTokens = -1;
+        Iterator<Map.Entry<String, TokenBucket>> it = buckets.entrySet().iterator();
+        for (int i = 0; i < EVICTION_SAMPLE && it.hasNext(); i++) {
+            Map.Entry<String, TokenBucket> entry = it.next();
+            double tokens = entry.getValue().availableTokens();
+            if (tokens > fullestTokens) {
+                fullest = entry;
+                fullestTokens = tokens;
+            }
+        }
+        if (fullest != null) {
+            buckets.remove(fullest.getKey(), fullest.getValue());
+        }
+    }
+
+    /**
+     * Drops keys whose bucket has refilled completely (they would start from
+     * a full bucket anyway), then trims the fullest buckets down to the bound.
+     */
+    public void evictIdle() {
+        buckets.values().removeIf(bucket -> bucket.availableTokens() >= capacity);
+        int excess = buckets.size() - maxKeys;
+        if (excess <= 0) {
+            return;
+        }
+        // Token counts keep refilling, so sort on a snapshot of them
+        List<Candidate> candidates = new ArrayList<>(buckets.size());
+        buckets.forEach((key, bucket) -> candidates.add(new Candidate(key, bucket, bucket.availableTokens())));
+        candidates.sort(Comparator.comparingDouble(Candidate::tokens).reversed());
+        for (int i = 0; i < excess && i < candidates.size(); i++) {
+            buckets.remove(candidates.get(i).key(), candidates.get(i).bucket());
+        }
+    }
+
+    private record Candidate(String key, TokenBucket bucket, double tokens) {
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+}
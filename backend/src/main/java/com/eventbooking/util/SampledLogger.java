@@ -0,0 +1,66 @@
+package com.eventbooking.util;
+
+import org.slf4j.Logger;
+import org.slf4j.event.Level;
+import org.slf4j.spi.LoggingEventBuilder;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rate-limited front for one category of high-frequency log lines (every
+ * webhook, every STOMP push, every rejected token). Up to {@code burst} lines
+ * go through at once and {@code perSecond} after that; the rest are counted,
+ * and the next line that does get through carries the count as a
+ * {@code suppressed} key/value pair, so a flood costs one counter increment
+ * per event instead of a formatted write.
+ */
+public final class SampledLogger {
+
+    private final Logger logger;
+    private final String category;
+    private final TokenBucket bucket;
+    private final LongAdder suppressed = new LongAdder();
+
+    public SampledLogger(Logger logger, String category, double perSecond, int burst) {
+        this.logger = logger;
+        this.category = category;
+        this.bucket = new TokenBucket(burst, perSecond);
+    }
+
+    public void debug(String format, Object... args) {
+        log(Level.DEBUG, format, args);
+    }
+
+    public void info(String format, Object... args) {
+        log(Level.INFO, format, args);
+    }
+
+    public void warn(String format, Object... args) {
+        log(Level.WARN, format, args);
+    }
+
+    /** A trailing {@link Throwable} argument is logged as the cause, as with plain SLF4J calls. */
+    public void log(Level level, String format, Object... args) {
+        if (!logger.isEnabledForLevel(level)) {
+            return;
+        }
+        if (!bucket.tryAcquire()) {
+            suppressed.increment();
+            return;
+        }
+        LoggingEventBuilder event = logger.atLevel(level).setMessage(format).addKeyValue("category", category);
+        long dropped = suppressed.sumThenReset();
+        if (dropped > 0) {
+            event = event.addKeyValue("suppressed", dropped);
+        }
+        int argCount = args.length;
+        if (argCount > 0 && args[argCount - 1] instanceof Throwable cause) {
+            event = event.setCause(cause);
+            argCount--;
+        }
+        for (int i = 0; i < argCount; i++) {
+            event = event.addArgument(args[i]);
+        }
+        event.log();
+    }
+}
@@ -0,0 +1,94 @@
+package com.eventbooking.util;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free token bucket. Tokens refill continuously at {@code ratePerSecond}
+ * up to {@code capacity} (the burst size); callers take tokens without
+ * blocking and decide themselves what to do when none are left. The state is
+ * one immutable snapshot swapped with compare-and-set, so concurrent callers
+ * never wait on each other.
+ */
+public final class TokenBucket {
+
+    private record State(double tokens, long refilledAtNanos) {
+    }
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private final AtomicReference<State> state;
+
+    public TokenBucket(double capacity, double ratePerSecond) {
+        if (capacity < 1 || ratePerSecond <= 0) {
+            throw new IllegalArgumentException("Token bucket needs capacity >= 1 and a positive rate");
+        }
+        this.capacity = capacity;
+        this.tokensPerNano = ratePerSecond / 1_000_000_000d;
+        this.state = new AtomicReference<>(new State(capacity, System.nanoTime()));
+    }
+
+    /** Takes one token if available. */
+    public boolean tryAcquire() {
+        return tryAcquire(1);
+    }
+
+    /** Takes {@code permits} tokens if all of them are available, otherwise none. */
+    public boolean tryAcquire(int permits) {
+        while (true) {
+            State current = state.get();
+            long now = System.nanoTime();
+            double available = refill(current, now);
+            if (available < permits) {
+                return false;
+            }
+            if (state.compareAndSet(current, new State(available - permits, now))) {
+                return true;
+            }
+        }
+    }
+
+    /** Takes as many whole tokens as are available, up to {@code max}; returns how many were taken. */
+    public int tryAcquireUpTo(int max) {
+        while (true) {
+            State current = state.get();
+            long now = System.nanoTime();
+            double available = refill(current, now);
+            int granted = (int) Math.min(max, Math.floor(available));
+            if (granted <= 0) {
+                return 0;
+            }
+            if (state.compareAndSet(current, new State(available - granted, now))) {
+                return granted;
+            }
+        }
+    }
+
+    /** Returns unused tokens, e.g. when fewer items than acquired turned out to be ready. */
+    public void release(int permits) {
+        if (permits <= 0) {
+            return;
+        }
+        while (true) {
+            State current = state.get();
+            State next = new State(Math.min(capacity, current.tokens() + permits), current.refilledAtNanos());
+            if (state.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    /** Nanoseconds until {@code permits} tokens will be available (0 if they already are). */
+    public long nanosUntilAvailable(int permits) {
+        double missing = permits - refill(state.get(), System.nanoTime());
+        return missing <= 0 ? 0 : (long) Math.ceil(missing / tokensPerNano);
+    }
+
+    public double availableTokens() {
+        return refill(state.get(), System.nanoTime());
+    }
+
+    private double refill(State current, long now) {
+        long elapsed = Math.max(0, now - current.refilledAtNanos());
+        return Math.min(capacity, current.tokens() + elapsed * tokensPerNano);
+    }
+}
@@ -0,0 +1,127 @@
+package com.eventbooking.simulator;
+
+import com.eventbooking.model.EmailJob;
+import com.eventbooking.repository.EmailJobRepository;
+import com.eventbooking.service.EmailDispatcher;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Measures bulk email throughput through {@link EmailDispatcher} against
+ * {@link SmtpSinkServer}, under the {@code simulator} profile. Off unless
+ * {@code simulator.email-benchmark.messages} is positive.
+ * <p>
+ * Once the app is ready it queues that many bulk jobs in one transaction, the
+ * way a cancellation run does, and waits until the sink has taken them all.
+ * Then it logs the time from commit to the last message, the throughput and
+ * the SMTP connections used; queueing time is logged apart. The
+ * dispatcher's own settings decide the run, e.g. one connection per message
+ * against 50 per connection on a single worker:
+ * <pre>
+ * --spring.profiles.active=h2,simulator --simulator.email-benchmark.messages=200
+ *   --email.queue.workers=1 --email.queue.batch-size=50 --email.rate.bulk.per-second=10000
+ *   --email.rate.bulk.burst=10000 --email.smtp.max-messages-per-connection=1   (then =50)
+ * </pre>
+ * The bulk token bucket has to be raised, or it caps both runs at its rate.
+ */
+@Component
+@Profile("simulator")
+public class EmailBatchBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailBatchBenchmark.class);
+
+    @Autowired
+    private EmailDispatcher emailDispatcher;
+
+    @Autowired
+    private EmailJobRepository emailJobRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${simulator.email-benchmark.messages:0}")
+    private int messageCount;
+
+    @Value("${simulator.email-benchmark.timeout-seconds:300}")
+    private long timeoutSeconds;
+
+    @Value("${email.queue.workers:4}")
+    private int workers;
+
+    @Value("${email.queue.batch-size:20}")
+    private int batchSize;
+
+    @Value("${email.smtp.max-messages-per-connection:50}")
+    private int maxMessagesPerConnection;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (messageCount <= 0) {
+            return;
+        }
+        Thread runner = new Thread(this::run, "email-benchmark");
+        runner.setDaemon(true);
+        runner.start();
+    }
+
+    private void run() {
+        double messagesBefore = sinkCount("simulator.smtp.messages");
+        double connectionsBefore = sinkCount("simulator.smtp.connections");
+        logger.warn("EMAIL BENCHMARK: queueing {} bulk emails (workers {}, batch {}, {} per connection)",
+                messageCount, workers, batchSize, maxMessagesPerConnection);
+
+        long queueStarted = System.nanoTime();
+        new TransactionTemplate(transactionManager).executeWithoutResult(tx -> {
+            for (int i = 0; i < messageCount; i++) {
+                emailDispatcher.enqueue(EmailJob.KIND_CANCELLATION, "benchmark-" + i + "@example.invalid",
+                        "Benchmark " + i, "<p>Email batching benchmark message " + i + "</p>");
+            }
+        });
+        long started = System.nanoTime();
+        logger.warn("EMAIL BENCHMARK: queued in {} s", String.format("%.1f", (started - queueStarted) / 1e9));
+
+        long deadline = started + timeoutSeconds * 1_000_000_000L;
+        double sent = 0;
+        while (System.nanoTime() < deadline) {
+            sent = sinkCount("simulator.smtp.messages") - messagesBefore;
+            if (sent >= messageCount) {
+                break;
+            }
+            sleep(20);
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        double connections = sinkCount("simulator.smtp.connections") - connectionsBefore;
+        if (sent < messageCount) {
+            logger.warn("EMAIL BENCHMARK: timed out after {} s with {} of {} sent ({} still pending)",
+                    String.format("%.1f", seconds), (long) sent, messageCount,
+                    emailJobRepository.countByStatusAndPriority(EmailJob.STATUS_PENDING, EmailJob.PRIORITY_BULK));
+            return;
+        }
+        logger.warn("EMAIL BENCHMARK: {} emails in {} s ({} msg/s) over {} SMTP connections", messageCount,
+                String.format("%.1f", seconds), String.format("%.0f", messageCount / seconds), (long) connections);
+    }
+
+    private double sinkCount(String name) {
+        return meterRegistry.counter(name).count();
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
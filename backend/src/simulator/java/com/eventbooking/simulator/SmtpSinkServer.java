@@ -0,0 +1,170 @@
+package com.eventbooking.simulator;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for the SMTP relay, active under the {@code simulator}
+ * profile. It speaks just enough ESMTP (EHLO, AUTH PLAIN/LOGIN, MAIL, RCPT,
+ * DATA, RSET, NOOP, QUIT) for JavaMail, discards every message, and charges a
+ * configurable delay per session setup (standing in for the TLS handshake and
+ * AUTH round trips of the real relay) and per message, so connection reuse in
+ * {@code EmailDispatcher} can be measured without sending real mail.
+ */
+@Component
+@Profile("simulator")
+public class SmtpSinkServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(SmtpSinkServer.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${simulator.smtp.port:2525}")
+    private int port;
+
+    @Value("${simulator.smtp.max-connections:32}")
+    private int maxConnections;
+
+    @Value("${simulator.smtp.handshake-latency-ms:150}")
+    private long handshakeLatencyMs;
+
+    @Value("${simulator.smtp.message-latency-ms:5}")
+    private long messageLatencyMs;
+
+    private ServerSocket serverSocket;
+    private ExecutorService sessions;
+    private Counter connections;
+    private Counter messages;
+
+    @PostConstruct
+    public void start() throws IOException {
+        connections = meterRegistry.counter("simulator.smtp.connections");
+        messages = meterRegistry.counter("simulator.smtp.messages");
+        AtomicInteger threadCount = new AtomicInteger();
+        sessions = Executors.newFixedThreadPool(Math.max(1, maxConnections), r -> {
+            Thread t = new Thread(r, "smtp-sink-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        serverSocket = new ServerSocket(port);
+        Thread acceptor = new Thread(this::acceptLoop, "smtp-sink-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        logger.warn("SMTP SINK listening on port {} (handshake {} ms, per message {} ms)", port,
+                handshakeLatencyMs, messageLatencyMs);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        serverSocket.close();
+        sessions.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                sessions.execute(() -> session(socket));
+            } catch (SocketException e) {
+                return; // Closed on shutdown
+            } catch (IOException e) {
+                logger.warn("SMTP sink accept failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void session(Socket socket) {
+        connections.increment();
+        try (socket;
+                BufferedReader in = new BufferedReader(
+                        new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII)) {
+            reply(out, "220 localhost ESMTP sink");
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                switch (command) {
+                    case "EHLO" -> reply(out, "250-localhost\r\n250-AUTH PLAIN LOGIN\r\n250-8BITMIME\r\n250 OK");
+                    case "HELO" -> reply(out, "250 localhost");
+                    case "AUTH" -> {
+                        sleep(handshakeLatencyMs);
+                        authenticate(line, in, out);
+                    }
+                    case "MAIL", "RCPT", "RSET", "NOOP" -> reply(out, "250 OK");
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        while ((line = in.readLine()) != null && !".".equals(line)) {
+                            // Discard the message body
+                        }
+                        sleep(messageLatencyMs);
+                        messages.increment();
+                        reply(out, "250 OK queued");
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (IOException e) {
+            logger.debug("SMTP sink session ended: {}", e.getMessage());
+        }
+    }
+
+    private void authenticate(String line, BufferedReader in, Writer out) throws IOException {
+        String[] parts = line.trim().split("\\s+");
+        String mechanism = parts.length > 1 ? parts[1].toUpperCase() : "";
+        if ("PLAIN".equals(mechanism) && parts.length < 3) {
+            reply(out, "334 ");
+            in.readLine();
+        } else if ("LOGIN".equals(mechanism)) {
+            if (parts.length < 3) {
+                reply(out, "334 VXNlcm5hbWU6");
+                in.readLine();
+            }
+            reply(out, "334 UGFzc3dvcmQ6");
+            in.readLine();
+        }
+        reply(out, "235 Authentication successful");
+    }
+
+    private static void reply(Writer out, String response) throws IOException {
+        out.write(response);
+        out.write("\r\n");
+        out.flush();
+    }
+
+    private static void sleep(long ms) {
+        if (ms <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,372 @@
+package com.eventbooking.simulator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process stand-in for the Node wallet-backend, active only under the
+ * {@code simulator} profile and only compiled into builds made with the
+ * {@code simulator} Maven profile ({@code mvn -Psimulator}). It serves the three external endpoints the
+ * payment flow calls on its own port (so simulated gateway latency never
+ * occupies Tomcat threads) and delivers HMAC-signed webhooks back to
+ * {@code /api/payments/webhook-callback}.
+ *
+ * Faults are injected per request: added latency, HTTP 500s, stalls past the
+ * client read timeout, declined transfers, and dropped, duplicated or
+ * reordered webhook deliveries.
+ */
+@Component
+@Profile("simulator")
+public class WalletGatewaySimulator {
+
+    private static final Logger logger = LoggerFactory.getLogger(WalletGatewaySimulator.class);
+
+    private static final String STATUS_PENDING = "PENDING";
+    private static final String STATUS_SUCCESS = "SUCCESS";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${simulator.wallet.port:9090}")
+    private int port;
+
+    @Value("${simulator.wallet.threads:64}")
+    private int threads;
+
+    @Value("${simulator.wallet.latency-ms:50}")
+    private long latencyMs;
+
+    @Value("${simulator.wallet.latency-jitter-ms:50}")
+    private long latencyJitterMs;
+
+    @Value("${simulator.wallet.error-rate:0.0}")
+    private double errorRate;
+
+    @Value("${simulator.wallet.stall-rate:0.0}")
+    private double stallRate;
+
+    @Value("${simulator.wallet.stall-ms:10000}")
+    private long stallMs;
+
+    @Value("${simulator.wallet.decline-rate:0.0}")
+    private double declineRate;
+
+    // Delay before a created payment request is "paid" by the simulated customer; negative disables
+    @Value("${simulator.wallet.auto-pay-after-ms:1000}")
+    private long autoPayAfterMs;
+
+    @Value("${simulator.webhook.target-url:http://localhost:${server.port}/api/payments/webhook-callback}")
+    private String webhookTargetUrl;
+
+    @Value("${wallet.webhook.secret}")
+    private String webhookSecret;
+
+    @Value("${simulator.webhook.delay-ms:100}")
+    private long webhookDelayMs;
+
+    @Value("${simulator.webhook.drop-rate:0.0}")
+    private double webhookDropRate;
+
+    @Value("${simulator.webhook.duplicate-rate:0.0}")
+    private double webhookDuplicateRate;
+
+    // Probability that a stale payment.pending event is delivered after the success event
+    @Value("${simulator.webhook.reorder-rate:0.0}")
+    private double webhookReorderRate;
+
+    @Value("${simulator.webhook.max-attempts:3}")
+    private int webhookMaxAttempts;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, SimulatedPayment> payments = new ConcurrentHashMap<>();
+
+    private HttpServer server;
+    private ExecutorService requestPool;
+    private ScheduledExecutorService webhookScheduler;
+    private HttpClient webhookClient;
+
+    private static final class SimulatedPayment {
+        final String paymentId;
+        final double amount;
+        volatile String status = STATUS_PENDING;
+
+        SimulatedPayment(String paymentId, double amount) {
+            this.paymentId = paymentId;
+            this.amount = amount;
+        }
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        AtomicInteger threadCount = new AtomicInteger();
+        requestPool = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "wallet-sim-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        webhookScheduler = Executors.newScheduledThreadPool(4, r -> {
+            Thread t = new Thread(r, "wallet-sim-webhook");
+            t.setDaemon(true);
+            return t;
+        });
+        webhookClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(2))
+                .executor(webhookScheduler)
+                .build();
+
+        server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.createContext("/api/external/create-request", exchange -> handle(exchange, "create-request"));
+        server.createContext("/api/external/transfer", exchange -> handle(exchange, "transfer"));
+        server.createContext("/api/external/verify-reference", exchange -> handle(exchange, "verify-reference"));
+        server.setExecutor(requestPool);
+        server.start();
+        logger.warn("Wallet gateway SIMULATOR listening on port {}; webhooks go to {}", port, webhookTargetUrl);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+        }
+        requestPool.shutdownNow();
+        webhookScheduler.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange, String operation) {
+        try {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            sleep(latencyMs + (latencyJitterMs > 0 ? random.nextLong(latencyJitterMs + 1) : 0));
+
+            if (random.nextDouble() < stallRate) {
+                count(operation, "stalled");
+                sleep(stallMs);
+            }
+            if (random.nextDouble() < errorRate) {
+                count(operation, "error");
+                respond(exchange, 500, Map.of("success", false, "message", "Simulated gateway error"));
+                return;
+            }
+
+            switch (operation) {
+                case "create-request" -> createRequest(exchange);
+                case "transfer" -> transfer(exchange, random);
+                default -> verifyReference(exchange);
+            }
+        } catch (Exception e) {
+            logger.error("Simulator failed to handle {}", operation, e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void createRequest(HttpExchange exchange) throws IOException {
+        JsonNode body = readBody(exchange);
+        String referenceId = body.path("referenceId").asText("");
+        if (referenceId.isEmpty() || !body.has("amount")) {
+            count("create-request", "bad_request");
+            respond(exchange, 400, Map.of("success", false, "message", "Missing required fields"));
+            return;
+        }
+
+        String token = "sim_" + UUID.randomUUID().toString().replace("-", "");
+        SimulatedPayment payment = new SimulatedPayment(token, body.path("amount").asDouble());
+        payments.put(referenceId, payment);
+        if (autoPayAfterMs >= 0) {
+            webhookScheduler.schedule(() -> markPaid(referenceId, payment), autoPayAfterMs, TimeUnit.MILLISECONDS);
+        }
+
+        count("create-request", "ok");
+        respond(exchange, 200, Map.of("success", true,
+                "data", Map.of("token", token, "paymentUrl", "http://localhost:" + port + "/scan?token=" + token)));
+    }
+
+    private void transfer(HttpExchange exchange, ThreadLocalRandom random) throws IOException {
+        JsonNode body = readBody(exchange);
+        String referenceId = body.path("referenceId").asText("");
+        if (random.nextDouble() < declineRate) {
+            count("transfer", "declined");
+            respond(exchange, 402, Map.of("success", false, "message", "Insufficient balance"));
+            return;
+        }
+
+        SimulatedPayment payment = payments.computeIfAbsent(referenceId,
+                ref -> new SimulatedPayment("sim_" + UUID.randomUUID().toString().replace("-", ""),
+                        body.path("amount").asDouble()));
+        markPaid(referenceId, payment);
+
+        count("transfer", "ok");
+        respond(exchange, 200, Map.of("success", true, "transactionId", payment.paymentId));
+    }
+
+    private void verifyReference(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        SimulatedPayment payment = payments.get(query.getOrDefault("referenceId", ""));
+        count("verify-reference", payment == null ? "unknown" : payment.status.toLowerCase());
+        if (payment == null) {
+            respond(exchange, 200, Map.of("received", false, "message", "Transaction not found for this reference"));
+            return;
+        }
+        respond(exchange, 200, Map.of("received", STATUS_SUCCESS.equals(payment.status),
+                "status", payment.status, "amount", payment.amount));
+    }
+
+    private void markPaid(String referenceId, SimulatedPayment payment) {
+        if (STATUS_SUCCESS.equals(payment.status)) {
+            return;
+        }
+        payment.status = STATUS_SUCCESS;
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextDouble() < webhookDropRate) {
+            count("webhook", "dropped");
+            return;
+        }
+        String success = webhookPayload("payment.success", referenceId, payment, STATUS_SUCCESS);
+        scheduleDelivery(success, webhookDelayMs, 1);
+        if (random.nextDouble() < webhookDuplicateRate) {
+            count("webhook", "duplicated");
+            scheduleDelivery(success, webhookDelayMs + random.nextLong(Math.max(1, webhookDelayMs) + 1), 1);
+        }
+        if (random.nextDouble() < webhookReorderRate) {
+            // An earlier-state event arriving after the success it preceded
+            count("webhook", "reordered");
+            scheduleDelivery(webhookPayload("payment.pending", referenceId, payment, STATUS_PENDING),
+                    webhookDelayMs * 2 + 1, 1);
+        }
+    }
+
+    private String webhookPayload(String event, String referenceId, SimulatedPayment payment, String status) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("event", event);
+        payload.put("payment_id", payment.paymentId);
+        payload.put("amount", payment.amount);
+        payload.put("currency", "COIN");
+        payload.put("reference", referenceId);
+        payload.put("status", status);
+        payload.put("timestamp", Instant.now().toString());
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void scheduleDelivery(String payload, long delayMs, int attempt) {
+        webhookScheduler.schedule(() -> deliver(payload, attempt), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void deliver(String payload, int attempt) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(webhookTargetUrl))
+                .timeout(Duration.ofSeconds(5))
+                .header("Content-Type", "application/json")
+                .header("X-Signature", sign(payload))
+                .POST(HttpRequest.BodyPublishers.ofString(payload))
+                .build();
+        webhookClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+            boolean delivered = error == null && response.statusCode() / 100 == 2;
+            if (delivered) {
+                count("webhook", "delivered");
+            } else if (attempt < webhookMaxAttempts) {
+                count("webhook", "retry");
+                scheduleDelivery(payload, 1000L << attempt, attempt + 1);
+            } else {
+                count("webhook", "failed");
+                logger.warn("Simulator gave up delivering webhook after {} attempts", attempt);
+            }
+        });
+    }
+
+    private String sign(String payload) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(webhookSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return HexFormat.of().formatHex(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot sign simulated webhook", e);
+        }
+    }
+
+    private JsonNode readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] bytes = in.readAllBytes();
+            return bytes.length == 0 ? objectMapper.createObjectNode() : objectMapper.readTree(bytes);
+        }
+    }
+
+    private void respond(HttpExchange exchange, int status, Map<String, Object> body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    private void count(String operation, String outcome) {
+        meterRegistry.counter("simulator.wallet.requests", "operation", operation, "outcome", outcome).increment();
+    }
+
+    private static void sleep(long ms) {
+        if (ms <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
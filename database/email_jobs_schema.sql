@@ -0,0 +1,33 @@
+-- Persistent email queue
+-- EmailService renders and inserts rows; EmailDispatcher workers deliver them with retry and backoff.
+
+CREATE TABLE IF NOT EXISTS email_jobs (
+    id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    kind VARCHAR(20) NOT NULL, -- OTP, TICKET, CANCELLATION
+    recipient VARCHAR(255) NOT NULL,
+    subject VARCHAR(500) NOT NULL,
+    html_body TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING', -- PENDING, SENDING, SENT, DEAD
+    attempts INT NOT NULL DEFAULT 0,
+    last_error TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    locked_at TIMESTAMP,
+    sent_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_email_jobs_due ON email_jobs(status, next_attempt_at);
+
+-- Ticket emails carry their QR code as an inline (cid:ticket-qr) attachment generated at send time
+ALTER TABLE email_jobs ADD COLUMN IF NOT EXISTS qr_booking_id UUID;
+
+-- Delivery class (OTP, TRANSACTIONAL, BULK): each class has its own rate limit and OTP mail
+-- has a dedicated sender, so due jobs are looked up per class
+ALTER TABLE email_jobs ADD COLUMN IF NOT EXISTS priority VARCHAR(20) NOT NULL DEFAULT 'TRANSACTIONAL';
+UPDATE email_jobs SET priority = 'OTP' WHERE kind = 'OTP' AND status = 'PENDING';
+UPDATE email_jobs SET priority = 'BULK' WHERE kind = 'CANCELLATION' AND status = 'PENDING';
+DROP INDEX IF EXISTS idx_email_jobs_due;
+CREATE INDEX IF NOT EXISTS idx_email_jobs_lane ON email_jobs(status, priority, next_attempt_at);
+
+-- OTP mail is no longer stored (the body contains the code); it is queued in memory by EmailDispatcher
+DELETE FROM email_jobs WHERE kind = 'OTP';
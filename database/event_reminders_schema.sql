@@ -0,0 +1,7 @@
+-- Event reminders
+-- EventReminderScheduler emails confirmed bookings of upcoming events once, honouring
+-- user_preferences.event_reminders; reminder_sent_at marks bookings already reminded.
+
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS reminder_sent_at TIMESTAMP;
+
+CREATE INDEX IF NOT EXISTS idx_events_event_date ON events(event_date);
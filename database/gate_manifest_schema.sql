@@ -0,0 +1,6 @@
+-- Gate attendee manifests
+-- GET /api/tickets/events/{id}/manifest?since=<version> lists the event's bookings
+-- changed after a version, selected by updated_at.
+
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP;
+CREATE INDEX IF NOT EXISTS idx_bookings_category_updated ON bookings(event_category_id, updated_at);
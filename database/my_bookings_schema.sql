@@ -0,0 +1,5 @@
+-- My bookings list
+-- GET /api/bookings/my/summary pages a user's bookings newest first on (booking_time, id).
+-- Rows created before booking_time existed need POST /api/admin/maintenance/populate-booking-times.
+
+CREATE INDEX IF NOT EXISTS idx_bookings_user_time ON bookings(user_id, booking_time DESC, id DESC);
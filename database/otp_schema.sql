@@ -0,0 +1,6 @@
+-- OTP attempt limits
+-- Used when otp.store=database; the default in-memory store keeps codes out of the database.
+
+ALTER TABLE email_otp ADD COLUMN IF NOT EXISTS attempts INT NOT NULL DEFAULT 0;
+
+CREATE INDEX IF NOT EXISTS idx_email_otp_lookup ON email_otp(email, purpose);
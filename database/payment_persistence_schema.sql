@@ -15,3 +15,12 @@ ALTER TABLE seat_holds ADD COLUMN IF NOT EXISTS status VARCHAR(50) DEFAULT 'HELD
 -- 3. Index for performance
 CREATE INDEX IF NOT EXISTS idx_seat_holds_reference_id ON seat_holds(reference_id);
 CREATE INDEX IF NOT EXISTS idx_pending_payments_created_at ON pending_payments(created_at);
+
+-- 4. Finalization state machine (PENDING -> VERIFYING -> VERIFIED -> BOOKED | FAILED)
+ALTER TABLE pending_payments ADD COLUMN IF NOT EXISTS status VARCHAR(20) NOT NULL DEFAULT 'PENDING';
+ALTER TABLE pending_payments ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP;
+
+-- 5. Compact binary booking payload (legacy rows keep JSON in booking_payload)
+ALTER TABLE pending_payments ADD COLUMN IF NOT EXISTS booking_data BYTEA;
+ALTER TABLE pending_payments ALTER COLUMN booking_payload DROP NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_pending_payments_status ON pending_payments(status, created_at);
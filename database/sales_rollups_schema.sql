@@ -0,0 +1,18 @@
+-- Sales rollups
+-- SalesRollupService adds every booking to its minute, hour and day bucket (net of cancellations)
+-- with INSERT ... ON CONFLICT; minute and hour buckets are dropped after their retention.
+-- Events booked before this table existed: POST /api/admin/sales/events/{eventId}/rebuild
+
+CREATE TABLE IF NOT EXISTS sales_rollups (
+    event_id UUID NOT NULL,
+    category_id UUID NOT NULL,
+    granularity VARCHAR(8) NOT NULL,
+    bucket_start TIMESTAMP NOT NULL,
+    bookings BIGINT NOT NULL DEFAULT 0,
+    seats BIGINT NOT NULL DEFAULT 0,
+    revenue NUMERIC(14, 2) NOT NULL DEFAULT 0,
+    cancellations BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (event_id, category_id, granularity, bucket_start)
+);
+
+CREATE INDEX IF NOT EXISTS idx_sales_rollups_age ON sales_rollups(granularity, bucket_start);
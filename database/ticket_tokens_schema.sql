@@ -0,0 +1,5 @@
+-- Signed ticket tokens and offline gate check-ins
+-- Gates verify ticket tokens offline and upload their scans to POST /api/tickets/check-ins;
+-- the earliest scan of a booking wins and records the gate that made it.
+
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS checked_in_device VARCHAR(64);
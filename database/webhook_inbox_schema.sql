@@ -0,0 +1,19 @@
+-- Durable inbox for wallet webhooks
+-- The webhook endpoint only inserts here and acknowledges; workers process rows afterwards.
+
+CREATE TABLE IF NOT EXISTS webhook_inbox (
+    id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    event_id VARCHAR(255) NOT NULL UNIQUE, -- event type + gateway payment id (dedup key)
+    event_type VARCHAR(100),
+    reference_id VARCHAR(255),
+    payload TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'RECEIVED', -- RECEIVED, PROCESSING, PROCESSED, FAILED
+    attempts INT NOT NULL DEFAULT 0,
+    last_error TEXT,
+    received_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    locked_at TIMESTAMP,
+    processed_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_webhook_inbox_due ON webhook_inbox(status, next_attempt_at);
@@ -214,6 +214,9 @@ export default function OrderSummary() {
                 if (response.data.status === 'SUCCESS') {
                     setBookingConfirmed(true);
                     showMessage("Payment Successful!", { type: 'success' });
+                } else if (response.data.status === 'PROCESSING') {
+                    // Booking is being finalized elsewhere; the payment topic delivers the result
+                    showMessage("Payment received. Confirming your booking...", { type: 'info' });
                 } else {
                     throw new Error(response.data.reason || "Payment Failed");
                 }
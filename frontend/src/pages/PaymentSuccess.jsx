@@ -18,12 +18,20 @@ export default function PaymentSuccess() {
         const verifyPayment = async () => {
             if (paymentStatus === 'success' && referenceId) {
                 try {
-                    // Call Backend to finalize and book
-                    const response = await api.post('/payments/finalize-wallet', { referenceId: referenceId });
+                    // Call Backend to finalize and book; PROCESSING means another finalizer
+                    // (usually the webhook) holds the reference, so ask again shortly
+                    let response = await api.post('/payments/finalize-wallet', { referenceId: referenceId });
+                    for (let attempt = 0; response.data?.status === 'PROCESSING' && attempt < 15; attempt++) {
+                        await new Promise(resolve => setTimeout(resolve, 2000));
+                        response = await api.post('/payments/finalize-wallet', { referenceId: referenceId });
+                    }
 
                     if (response.data.success) {
                         setStatus('success');
                         setMessage('Your payment was successful and your booking is confirmed!');
+                    } else if (response.data?.status === 'PROCESSING') {
+                        setStatus('error');
+                        setMessage('Your payment is still being confirmed. Check My Bookings in a few minutes.');
                     } else {
                         setStatus('error');
                         setMessage('Payment verification failed. Please check your wallet.');
@@ -17,6 +17,20 @@ const ScannerPage = () => {
         const text = data[0]?.rawValue;
         if (!text) return;
 
+        // Signed ticket token: the server verifies the signature and expiry
+        if (text.startsWith('ET1.')) {
+            setLoading(true);
+            try {
+                const res = await api.post('/bookings/scan', { token: text });
+                setResult(res.data);
+            } catch (error) {
+                setResult({ status: 'INVALID', message: 'Network error or invalid server response.' });
+            } finally {
+                setLoading(false);
+            }
+            return;
+        }
+
         // Parse format: BOOKING-da2612d1-298b-4c28-a096-82f60bb883c3-PENDING
         let bookingId;
         if (text.startsWith('BOOKING-')) {
@@ -16,6 +16,7 @@ const TicketPage = () => {
     const [loading, setLoading] = useState(true);
     const [emailing, setEmailing] = useState(false);
     const [downloading, setDownloading] = useState(false);
+    const [ticketToken, setTicketToken] = useState(null);
 
     // Get view from query param or default to 'ticket'
     const queryParams = new URLSearchParams(location.search);
@@ -30,6 +31,10 @@ const TicketPage = () => {
                     const found = res.data.find(b => b.id?.toString() === bookingId?.toString());
                     if (found) {
                         setBooking(found);
+                        // Signed token the gates verify offline; older scanners still read the plain format
+                        api.get(`/bookings/${found.id}/ticket`)
+                            .then(ticketRes => setTicketToken(ticketRes.data?.token || null))
+                            .catch(() => setTicketToken(null));
                     } else {
                         navigate('/my-bookings');
                     }
@@ -134,7 +139,7 @@ const TicketPage = () => {
         bookingDateTime: new Date(booking.bookingTime || Date.now()).toLocaleString('en-IN', { dateStyle: 'medium', timeStyle: 'short' }),
         paymentMode: 'UPI',
         transactionId: booking.transactionId || `TXN${booking.id.toString().slice(0, 8).toUpperCase()}`,
-        qrValue: `BOOKING-${booking.id}-${booking.transactionId || 'PENDING'}`
+        qrValue: ticketToken || `BOOKING-${booking.id}-${booking.transactionId || 'PENDING'}`
     };
 
     return (